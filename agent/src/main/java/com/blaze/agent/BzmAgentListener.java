@@ -0,0 +1,38 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent;
+
+import com.blaze.agent.utils.WebhookOutbox;
+import jetbrains.buildServer.agent.AgentLifeCycleAdapter;
+import jetbrains.buildServer.agent.AgentLifeCycleListener;
+import jetbrains.buildServer.agent.BuildAgent;
+import jetbrains.buildServer.util.EventDispatcher;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Starts the webhook outbox with the agent, so notifications stored before restart are delivered
+ * without waiting for the next BlazeMeter build.
+ */
+public class BzmAgentListener extends AgentLifeCycleAdapter {
+
+    public BzmAgentListener(@NotNull EventDispatcher<AgentLifeCycleListener> dispatcher) {
+        dispatcher.addListener(this);
+    }
+
+    @Override
+    public void agentStarted(@NotNull BuildAgent agent) {
+        WebhookOutbox.getInstance(agent.getConfiguration().getCacheDirectory(WebhookOutbox.DIRECTORY));
+    }
+}
@@ -17,10 +17,12 @@ package com.blaze.agent;
 import com.blaze.agent.logging.BzmAgentLogger;
 import com.blaze.agent.logging.BzmAgentNotifier;
 import com.blaze.agent.utils.BzmProcess;
-import com.blaze.plugins.PluginInfo;
+import com.blaze.agent.utils.MasterStatusPoller;
+import com.blaze.agent.utils.UpdateChecker;
 import com.blaze.runner.Constants;
 import com.blaze.utils.TCBzmUtils;
 import com.blaze.utils.Utils;
+import com.blazemeter.api.explorer.Master;
 import com.blazemeter.api.logging.Logger;
 import com.blazemeter.api.utils.BlazeMeterUtils;
 import jetbrains.buildServer.RunBuildException;
@@ -35,39 +37,85 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CancellationException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
+/**
+ * BlazeMeter build step. Its main test and additional tests are started at the same time, waited for together
+ * and post processed in parallel. Step finishes with the worst result of its tests.
+ */
 public class BzmBuildProcess implements BuildProcess {
 
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * BlazeMeter logs of builds are kept for `bzm.log.retentionDays` days (by default it is 7)
+     */
+    private static final long LOG_RETENTION = TimeUnit.DAYS.toMillis(Long.getLong("bzm.log.retentionDays", 7));
+
+    /**
+     * Agent-wide threads for starting tests, requests of live KPIs and post processing
+     */
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "bzm-build-worker-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private BuildAgent agent;
     private AgentRunningBuild agentRunningBuild;
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
-    private BzmProcess bzmProcess;
-    private Future<BuildFinishedStatus> processFuture;
+    private final List<BzmProcess> bzmProcesses = new ArrayList<>();
+    private final CompletableFuture<BuildFinishedStatus> processFuture = new CompletableFuture<>();
+    private final AtomicBoolean interrupted = new AtomicBoolean();
+    private final Set<CompletableFuture<Void>> watchFutures = ConcurrentHashMap.newKeySet();
+    private boolean updatesReported;
 
     private final BlazeMeterUtils utils;
     private final BuildProgressLogger logger;
+    private final BzmAgentNotifier notifier;
 
     public BzmBuildProcess(BuildAgent buildAgent, AgentRunningBuild agentRunningBuild,
                            BuildRunnerContext buildRunnerContext, ArtifactsWatcher artifactsWatcher,BuildRunnerContext context) throws RunBuildException {
         this.agentRunningBuild = agentRunningBuild;
         this.agent = buildAgent;
         this.logger = agentRunningBuild.getBuildLogger();
+        this.notifier = new BzmAgentNotifier(logger);
         this.utils = createBzmUtils(agentRunningBuild.getSharedConfigParameters());
-        this.bzmProcess = new BzmProcess(buildAgent, agentRunningBuild, buildRunnerContext, artifactsWatcher, utils,context);
+        Map<String, String> params = buildRunnerContext.getRunnerParameters();
+        List<String> tests = Utils.getTestIds(params.get(Constants.SETTINGS_ALL_TESTS_ID), params.get(Constants.SETTINGS_ADDITIONAL_TESTS));
+        for (String test : tests) {
+            if (!Utils.isValidTestId(test)) {
+                throw new RunBuildException("Invalid BlazeMeter test id: " + test);
+            }
+        }
+        for (int i = 0; i < tests.size(); i++) {
+            bzmProcesses.add(new BzmProcess(buildAgent, agentRunningBuild, buildRunnerContext, artifactsWatcher, utils, context, tests.get(i), i == 0, WORKERS));
+        }
     }
 
 
     @Override
     public void interrupt() {
         logger.message("Interrupt BlazeMeter build step");
-        if (processFuture != null) {
-            processFuture.cancel(true);
+        interrupted.set(true);
+        for (CompletableFuture<Void> watch : watchFutures) {
+            watch.cancel(false);
         }
     }
 
@@ -78,22 +126,135 @@ public class BzmBuildProcess implements BuildProcess {
 
     @Override
     public boolean isInterrupted() {
-        return processFuture.isCancelled() && isFinished();
+        return interrupted.get() && isFinished();
     }
 
 
     @Override
     public void start() throws RunBuildException {
         logger.message("BlazeMeter agent started: version = " + Utils.version());
-        checkUpdates();
-        processFuture = executor.submit(bzmProcess);
+        UpdateChecker.getInstance().checkInBackground();
+        if (bzmProcesses.isEmpty()) {
+            logger.error("BlazeMeter test is not selected");
+            processFuture.complete(BuildFinishedStatus.FINISHED_FAILED);
+            return;
+        }
+        if (bzmProcesses.size() > 1) {
+            logger.message("Start " + bzmProcesses.size() + " BlazeMeter tests in parallel");
+        }
+
+        final List<CompletableFuture<BuildFinishedStatus>> results = new ArrayList<>();
+        for (final BzmProcess bzmProcess : bzmProcesses) {
+            final CompletableFuture<BuildFinishedStatus> result = new CompletableFuture<>();
+            results.add(result);
+            WORKERS.execute(new Runnable() {
+                @Override
+                public void run() {
+                    startTest(bzmProcess, result);
+                }
+            });
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void ignored, Throwable throwable) {
+                processFuture.complete(reportResults(results));
+            }
+        });
+        reportUpdates();
+    }
+
+    private void startTest(final BzmProcess bzmProcess, final CompletableFuture<BuildFinishedStatus> result) {
+        Master master;
+        try {
+            master = bzmProcess.start();
+        } catch (RuntimeException e) {
+            result.complete(bzmProcess.fail(e));
+            return;
+        }
+        if (master == null) {
+            result.complete(BuildFinishedStatus.FINISHED_FAILED);
+            return;
+        }
+
+        CompletableFuture<Void> watch = MasterStatusPoller.getInstance().watch(master, bzmProcess.getTestId(), bzmProcess);
+        watchFutures.add(watch);
+        watch.whenCompleteAsync(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void ignored, Throwable throwable) {
+                onTestEnded(bzmProcess, result, throwable);
+            }
+        }, WORKERS);
+        if (interrupted.get()) {
+            watch.cancel(false);
+        }
+    }
+
+    private void onTestEnded(BzmProcess bzmProcess, CompletableFuture<BuildFinishedStatus> result, Throwable throwable) {
+        try {
+            if (interrupted.get()) {
+                result.complete(bzmProcess.interrupt());
+            } else if (throwable != null) {
+                result.complete(bzmProcess.fail(throwable));
+            } else {
+                result.complete(bzmProcess.finish());
+            }
+        } catch (Throwable e) {
+            result.complete(bzmProcess.fail(e));
+        }
+    }
+
+    /**
+     * @return the worst result of tests of build step
+     */
+    private BuildFinishedStatus reportResults(List<CompletableFuture<BuildFinishedStatus>> results) {
+        List<BuildFinishedStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            BuildFinishedStatus status = results.get(i).getNow(BuildFinishedStatus.FINISHED_FAILED);
+            statuses.add(status);
+            if (results.size() > 1) {
+                logger.message("BlazeMeter test " + bzmProcesses.get(i).getTestId() + " finished: " + status);
+            }
+        }
+        return aggregate(statuses);
+    }
+
+    static BuildFinishedStatus aggregate(Collection<BuildFinishedStatus> statuses) {
+        BuildFinishedStatus result = BuildFinishedStatus.FINISHED_SUCCESS;
+        for (BuildFinishedStatus status : statuses) {
+            if (severity(status) > severity(result)) {
+                result = status;
+            }
+        }
+        return result;
     }
 
-    private void checkUpdates() {
-        PluginInfo info = new PluginInfo(utils);
-        if (info.hasUpdates()) {
-            logger.message("A new version of BlazeMeter's TeamCity plugin is available. Please got to plugin's page to download a new version");
-            logger.message("https://plugins.jetbrains.com/plugin/9020-blazemeter");
+    private static int severity(BuildFinishedStatus status) {
+        switch (status) {
+            case FINISHED_SUCCESS:
+                return 0;
+            case FINISHED_FAILED:
+                return 2;
+            case INTERRUPTED:
+                return 3;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Report result of the last background check, if it is already known
+     */
+    private void reportUpdates() {
+        if (updatesReported) {
+            return;
+        }
+        Boolean hasUpdates = UpdateChecker.getInstance().getCachedResult();
+        if (hasUpdates != null) {
+            updatesReported = true;
+            if (hasUpdates) {
+                logger.message("A new version of BlazeMeter's TeamCity plugin is available. Please got to plugin's page to download a new version");
+                logger.message("https://plugins.jetbrains.com/plugin/9020-blazemeter");
+            }
         }
     }
 
@@ -103,15 +264,16 @@ public class BzmBuildProcess implements BuildProcess {
     public BuildFinishedStatus waitFor() throws RunBuildException {
         try {
             return processFuture.get();
-        } catch (final InterruptedException | CancellationException e) {
+        } catch (final InterruptedException e) {
             utils.getLogger().warn("Wait for finish has been interrupted", e);
             return BuildFinishedStatus.INTERRUPTED;
         } catch (final ExecutionException e) {
             utils.getLogger().warn("Caught exception while waiting for build", e);
             return BuildFinishedStatus.FINISHED_FAILED;
         } finally {
+            notifier.flush();
+            reportUpdates();
             closeLogger();
-            executor.shutdown();
         }
     }
 
@@ -120,12 +282,13 @@ public class BzmBuildProcess implements BuildProcess {
         String apiKeySecret = buildParams.get(Constants.API_KEY_SECRET);
         String address = buildParams.get(Constants.BLAZEMETER_URL);
 
-        return new TCBzmUtils(apiKeyId, apiKeySecret, address, new BzmAgentNotifier(logger), new BzmAgentLogger(createLogFile()));
+        return new TCBzmUtils(apiKeyId, apiKeySecret, address, notifier, new BzmAgentLogger(createLogFile()));
     }
 
     private String createLogFile() throws RunBuildException {
         try {
-            File logFile = new File(createArtifactDirectory(), "bzm-log-" + System.currentTimeMillis());
+            BzmAgentLogger.deleteExpired(agent.getConfiguration().getAgentLogsDirectory(), LOG_RETENTION);
+            File logFile = new File(createArtifactDirectory(), BzmAgentLogger.FILE_PREFIX + System.currentTimeMillis());
             FileUtils.touch(logFile);
             logFile.setWritable(true);
             return logFile.getAbsolutePath();
@@ -14,11 +14,361 @@
 
 package com.blaze.agent.logging;
 
-import com.blazemeter.api.logging.impl.FileLogger;
+import com.blazemeter.api.logging.Logger;
+import org.slf4j.LoggerFactory;
 
-public class BzmAgentLogger extends FileLogger {
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build log of BlazeMeter API calls. Messages are put into a bounded ring buffer of `bzm.log.bufferSize` messages
+ * (by default it is 8192, the oldest messages are dropped when it is full) and written in batches by a background thread,
+ * so logging never waits for the disk.
+ * When the file is bigger than `bzm.log.maxSize` KB (by default it is 10240), it is gzipped to `file.1.gz`,
+ * at most `bzm.log.maxFiles` archives are kept (by default it is 5).
+ * {@link #close()} waits at most `bzm.log.closeTimeout` milliseconds (by default it is 5000) for the buffer to be written.
+ * Every build writes its own log, {@link #deleteExpired(File, long)} removes logs of old builds.
+ */
+public class BzmAgentLogger implements Logger {
+
+    /**
+     * Agent log for failures of the build log itself
+     */
+    private static final org.slf4j.Logger SYSTEM_LOGGER = LoggerFactory.getLogger("com.blazemeter");
+
+    /**
+     * Prefix of build log names, archives of a log start with its name too
+     */
+    public static final String FILE_PREFIX = "bzm-log-";
+
+    private static final int BATCH_SIZE = 512;
+    private static final long POLL_TIMEOUT = 200;
+
+    private final File file;
+    private final long maxSize;
+    private final int maxFiles;
+    private final long closeTimeout;
+    private final ArrayBlockingQueue<Entry> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss,SSS");
+    private volatile boolean closed;
+
+    private Writer writer;
+    private long size;
 
     public BzmAgentLogger(String logFile) {
-        super(logFile);
+        this(new File(logFile), Integer.getInteger("bzm.log.bufferSize", 8192),
+                Long.getLong("bzm.log.maxSize", 10240) * 1024,
+                Integer.getInteger("bzm.log.maxFiles", 5),
+                Long.getLong("bzm.log.closeTimeout", 5000));
+    }
+
+    BzmAgentLogger(File file, int bufferSize, long maxSize, int maxFiles, long closeTimeout) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+        this.closeTimeout = closeTimeout;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "bzm-agent-logger-" + file.getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void debug(String message) {
+        log("DEBUG", message, null);
+    }
+
+    @Override
+    public void debug(String message, Throwable throwable) {
+        log("DEBUG", message, throwable);
+    }
+
+    @Override
+    public void info(String message) {
+        log("INFO", message, null);
+    }
+
+    @Override
+    public void info(String message, Throwable throwable) {
+        log("INFO", message, throwable);
+    }
+
+    @Override
+    public void warn(String message) {
+        log("WARN", message, null);
+    }
+
+    @Override
+    public void warn(String message, Throwable throwable) {
+        log("WARN", message, throwable);
+    }
+
+    @Override
+    public void error(String message) {
+        log("ERROR", message, null);
+    }
+
+    @Override
+    public void error(String message, Throwable throwable) {
+        log("ERROR", message, throwable);
+    }
+
+    private void log(String level, String message, Throwable throwable) {
+        if (closed) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), level, message, throwable);
+        while (!buffer.offer(entry)) {
+            if (buffer.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Write buffered messages and close the file, waits for the writer at most `closeTimeout` milliseconds
+     */
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join(closeTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!closed || !buffer.isEmpty()) {
+                Entry first = buffer.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                try {
+                    write(batch);
+                } catch (IOException e) {
+                    SYSTEM_LOGGER.warn("Failed to write BlazeMeter log " + file.getAbsolutePath(), e);
+                    closeWriter();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWriter();
+        }
+    }
+
+    private void write(List<Entry> batch) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            writeLine(format(new Entry(System.currentTimeMillis(), "WARN", lost + " messages were dropped, log buffer is full", null)));
+        }
+        for (Entry entry : batch) {
+            writeLine(format(entry));
+            if (size >= maxSize) {
+                rotate();
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeLine(String line) throws IOException {
+        writer.write(line);
+        size += utf8Length(line);
+    }
+
+    /**
+     * @return size of the string in UTF-8 bytes, the file is written in this encoding
+     */
+    static long utf8Length(String line) {
+        long length = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length() && Character.isLowSurrogate(line.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private String format(Entry entry) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(dateFormat.format(new Date(entry.time))).append(' ').append(entry.level).append(" - ").append(entry.message);
+        line.append(System.lineSeparator());
+        if (entry.throwable != null) {
+            StringWriter stackTrace = new StringWriter();
+            entry.throwable.printStackTrace(new PrintWriter(stackTrace));
+            line.append(stackTrace);
+        }
+        return line.toString();
+    }
+
+    private void open() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent.getAbsolutePath());
+        }
+        size = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                SYSTEM_LOGGER.warn("Failed to close BlazeMeter log " + file.getAbsolutePath(), e);
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * Shift archives (`file.1.gz` becomes `file.2.gz`, the last one is deleted), gzip current file to `file.1.gz`
+     */
+    private void rotate() throws IOException {
+        writer.flush();
+        closeWriter();
+
+        File oldest = archive(maxFiles);
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Cannot delete " + oldest.getAbsolutePath());
+        }
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File archive = archive(i);
+            if (archive.exists() && !archive.renameTo(archive(i + 1))) {
+                throw new IOException("Cannot rename " + archive.getAbsolutePath());
+            }
+        }
+        if (maxFiles > 0) {
+            gzip(file, archive(1));
+        }
+        if (!file.delete()) {
+            throw new IOException("Cannot delete " + file.getAbsolutePath());
+        }
+        open();
+    }
+
+    File archive(int index) {
+        return new File(file.getAbsolutePath() + "." + index + ".gz");
+    }
+
+    private static void gzip(File source, File target) throws IOException {
+        byte[] bytes = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target))) {
+            int read;
+            while ((read = in.read(bytes)) != -1) {
+                out.write(bytes, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Delete build logs (with their archives) not modified for `maxAge` milliseconds.
+     * Logs are looked for in `directory/project/build/`, directories emptied by the deletion are deleted too.
+     *
+     * @return number of deleted files
+     */
+    public static int deleteExpired(File directory, long maxAge) {
+        long expiredBefore = System.currentTimeMillis() - maxAge;
+        int deleted = 0;
+        for (File project : listDirectories(directory)) {
+            boolean projectChanged = false;
+            for (File build : listDirectories(project)) {
+                File[] files = build.listFiles();
+                if (files == null) {
+                    continue;
+                }
+                boolean buildChanged = false;
+                for (File file : files) {
+                    if (file.isFile() && file.getName().startsWith(FILE_PREFIX) && file.lastModified() < expiredBefore) {
+                        if (file.delete()) {
+                            deleted++;
+                            buildChanged = true;
+                        } else {
+                            SYSTEM_LOGGER.warn("Cannot delete old BlazeMeter log " + file.getAbsolutePath());
+                        }
+                    }
+                }
+                projectChanged |= buildChanged && deleteIfEmpty(build);
+            }
+            if (projectChanged) {
+                deleteIfEmpty(project);
+            }
+        }
+        return deleted;
+    }
+
+    private static File[] listDirectories(File directory) {
+        File[] directories = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isDirectory();
+            }
+        });
+        return (directories == null) ? new File[0] : directories;
+    }
+
+    private static boolean deleteIfEmpty(File directory) {
+        String[] names = directory.list();
+        return names != null && names.length == 0 && directory.delete();
+    }
+
+    private static final class Entry {
+        private final long time;
+        private final String level;
+        private final String message;
+        private final Throwable throwable;
+
+        private Entry(long time, String level, String message, Throwable throwable) {
+            this.time = time;
+            this.level = level;
+            this.message = message;
+            this.throwable = throwable;
+        }
     }
 }
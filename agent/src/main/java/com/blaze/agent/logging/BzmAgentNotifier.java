@@ -17,29 +17,147 @@ package com.blaze.agent.logging;
 import com.blazemeter.api.logging.UserNotifier;
 import jetbrains.buildServer.agent.BuildProgressLogger;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Implementation of com.blazemeter.api.logging.UserNotifier
+ * that keeps the build log short during long tests.
+ * Repeats of the previous info message are collapsed: the first one is logged at once, the last one is logged
+ * with the count of collapsed messages when another message comes or on {@link #flush()}.
+ * Periodic status messages of {@link #PERIODIC_MESSAGES} are repeats if they differ only in numbers.
+ * At most `bzm.notifier.maxPerSecond` info messages per second are logged (by default it is 5), others are counted.
+ * Messages with urls (e.g. the report link) are never collapsed or rate limited.
+ * Warnings and errors are always logged at once.
  */
 public class BzmAgentNotifier implements UserNotifier {
 
+    /**
+     * Prefixes of status messages logged by blazemeter-api-client while the test is running
+     */
+    static final List<String> PERIODIC_MESSAGES = Arrays.asList("Check if the test is still running");
+
     private final BuildProgressLogger logger;
+    private final double maxPerSecond;
+
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private String lastKey;
+    private String lastMessage;
+    private int repeated;
+    private int suppressed;
 
     public BzmAgentNotifier(BuildProgressLogger logger) {
+        this(logger, Integer.getInteger("bzm.notifier.maxPerSecond", 5));
+    }
+
+    public BzmAgentNotifier(BuildProgressLogger logger, int maxPerSecond) {
         this.logger = logger;
+        this.maxPerSecond = maxPerSecond;
+        this.tokens = maxPerSecond;
     }
 
     @Override
-    public void notifyInfo(String info) {
-        logger.message(info);
+    public synchronized void notifyInfo(String info) {
+        String key = toKey(info);
+        if (key != null && key.equals(lastKey)) {
+            lastMessage = info;
+            repeated++;
+            return;
+        }
+        flushRepeated();
+        lastKey = key;
+        lastMessage = info;
+
+        if (key == null || acquire()) {
+            flushSuppressed();
+            logger.message(info);
+        } else {
+            suppressed++;
+        }
     }
 
     @Override
-    public void notifyWarning(String warning) {
+    public synchronized void notifyWarning(String warning) {
+        flush();
         logger.warning(warning);
     }
 
     @Override
-    public void notifyError(String error) {
+    public synchronized void notifyError(String error) {
+        flush();
         logger.error(error);
     }
+
+    /**
+     * Log collapsed and suppressed messages
+     */
+    public synchronized void flush() {
+        flushRepeated();
+        flushSuppressed();
+        lastKey = null;
+        lastMessage = null;
+    }
+
+    private void flushRepeated() {
+        if (repeated > 0) {
+            logger.message(lastMessage + " (" + repeated + " similar messages collapsed)");
+            repeated = 0;
+        }
+    }
+
+    private void flushSuppressed() {
+        if (suppressed > 0) {
+            logger.message(suppressed + " messages were suppressed by rate limit");
+            suppressed = 0;
+        }
+    }
+
+    private boolean acquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxPerSecond, tokens + (now - lastRefill) / 1e9 * maxPerSecond);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return message itself, message with numbers replaced for periodic status messages
+     * or null if the message must not be collapsed
+     */
+    static String toKey(String message) {
+        if (message == null) {
+            return "";
+        }
+        if (message.contains("://")) {
+            return null;
+        }
+        for (String prefix : PERIODIC_MESSAGES) {
+            if (message.startsWith(prefix)) {
+                return replaceNumbers(message);
+            }
+        }
+        return message;
+    }
+
+    private static String replaceNumbers(String message) {
+        StringBuilder key = new StringBuilder(message.length());
+        boolean inNumber = false;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (Character.isDigit(c)) {
+                if (!inNumber) {
+                    key.append('#');
+                    inNumber = true;
+                }
+            } else {
+                key.append(c);
+                inNumber = false;
+            }
+        }
+        return key.toString();
+    }
 }
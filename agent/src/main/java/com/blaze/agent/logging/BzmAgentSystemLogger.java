@@ -0,0 +1,66 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of `com.blazemeter.api.logging.Logger` for agent-wide tasks, which are not bound to a build log file
+ */
+public class BzmAgentSystemLogger implements com.blazemeter.api.logging.Logger {
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    @Override
+    public void debug(String s) {
+        logger.debug(s);
+    }
+
+    @Override
+    public void debug(String s, Throwable throwable) {
+        logger.debug(s, throwable);
+    }
+
+    @Override
+    public void info(String s) {
+        logger.info(s);
+    }
+
+    @Override
+    public void info(String s, Throwable throwable) {
+        logger.info(s, throwable);
+    }
+
+    @Override
+    public void warn(String s) {
+        logger.warn(s);
+    }
+
+    @Override
+    public void warn(String s, Throwable throwable) {
+        logger.warn(s, throwable);
+    }
+
+    @Override
+    public void error(String s) {
+        logger.error(s);
+    }
+
+    @Override
+    public void error(String s, Throwable throwable) {
+        logger.error(s, throwable);
+    }
+}
@@ -14,9 +14,16 @@
 
 package com.blaze.agent.utils;
 
+import com.blaze.jtl.JtlAggregator;
+import com.blaze.notifications.WebhookMessages;
 import com.blaze.runner.Constants;
+import com.blaze.utils.JtlDownloader;
+import com.blaze.utils.KpiSummary;
+import com.blaze.utils.ReportManifest;
+import com.blaze.utils.TCBzmUtils;
 import com.blaze.utils.Utils;
 import com.blazemeter.api.explorer.Master;
+import com.blazemeter.api.explorer.Session;
 import com.blazemeter.api.utils.BlazeMeterUtils;
 import com.blazemeter.ciworkflow.BuildResult;
 import com.blazemeter.ciworkflow.CiBuild;
@@ -27,23 +34,27 @@ import jetbrains.buildServer.agent.BuildFinishedStatus;
 import jetbrains.buildServer.agent.BuildProgressLogger;
 import jetbrains.buildServer.agent.BuildRunnerContext;
 import jetbrains.buildServer.agent.artifacts.ArtifactsWatcher;
+import okhttp3.OkHttpClient;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps of one BlazeMeter test of build step: start of the test, progress reports while it is running and post processing.
+ * Waiting for the end of the test is done by {@link MasterStatusPoller}.
+ * Build step can run several tests in parallel, only its main test reports KPIs to build statistics and report tab summary.
+ */
+public class BzmProcess implements MasterStatusPoller.Listener {
+
+    private static final long PROGRESS_REPORT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final int JTL_STATISTIC_LABELS = Integer.getInteger("bzm.jtl.statisticLabels", 20);
 
-public class BzmProcess implements Callable<BuildFinishedStatus> {
     private final BuildAgent agent;
     private final AgentRunningBuild agentRunningBuild;
 
@@ -53,66 +64,116 @@ public class BzmProcess implements Callable<BuildFinishedStatus> {
     private ArtifactsWatcher artifactsWatcher;
     private BuildRunnerContext buildRunnerContext;
 
-    private Master master;
-    private String SLACK ="slack";
-    private String TEAMS ="teams";
+    private final String testId;
+    private final boolean isMainTest;
+    private final LiveKpiReporter kpiReporter;
+    private final boolean isDownloadJtl;
+    private final String jtlPath;
+    private final boolean isDownloadJunit;
+    private final String junitPath;
+    private volatile long startedAt;
+    private volatile Master master;
+    private volatile ReportManifest.Entry report;
+    private volatile long lastProgressReport;
+    /**
+     * @param test       - test in the following format 'id.type'
+     * @param isMainTest - true for the test selected in build step, false for its additional tests
+     * @param workers    - executor for requests of live KPIs
+     */
     public BzmProcess(BuildAgent buildAgent, AgentRunningBuild agentRunningBuild,
-                      BuildRunnerContext buildRunnerContext, ArtifactsWatcher artifactsWatcher, BlazeMeterUtils utils,BuildRunnerContext context) {
+                      BuildRunnerContext buildRunnerContext, ArtifactsWatcher artifactsWatcher, BlazeMeterUtils utils,BuildRunnerContext context,
+                      String test, boolean isMainTest, Executor workers) {
         this.agent = buildAgent;
         this.agentRunningBuild = agentRunningBuild;
 
         this.logger = agentRunningBuild.getBuildLogger();
+        this.kpiReporter = new LiveKpiReporter(logger, workers);
         this.utils = utils;
+        this.testId = Utils.getTestId(test);
+        this.isMainTest = isMainTest;
+        this.isDownloadJtl = Boolean.valueOf(buildRunnerContext.getRunnerParameters().get(Constants.SETTINGS_JTL));
+        this.jtlPath = buildRunnerContext.getRunnerParameters().get(Constants.SETTINGS_JTL_PATH);
+        this.isDownloadJunit = Boolean.valueOf(buildRunnerContext.getRunnerParameters().get(Constants.SETTINGS_JUNIT));
+        this.junitPath = buildRunnerContext.getRunnerParameters().get(Constants.SETTINGS_JUNIT_PATH);
         this.build = createCiBuild(buildRunnerContext.getRunnerParameters());
         this.artifactsWatcher = artifactsWatcher;
         this.buildRunnerContext = context;
     }
 
 
-    @Override
-    public BuildFinishedStatus call() {
+    /**
+     * Start BlazeMeter test
+     *
+     * @return started master or null if test was not started
+     */
+    public Master start() {
         try {
+            startedAt = System.currentTimeMillis();
             master = build.start();
-            if (master != null) {
-                publishArtifacts(build);
-                build.waitForFinish(master);
-                String selectedNotificationType = buildRunnerContext.getRunnerParameters().get(Constants.SETTING_NOTIFICATION_TYPE);
-                String webHookURL= buildRunnerContext.getRunnerParameters().get(Constants.SETING_WEBHOOK_URL);
-                 if(SLACK.equals(selectedNotificationType)){
-                     if (isNotNullOrEmpty(webHookURL)){
-                         sendWebhookNotificationSlack(master.getId(), build.getCurrentTest().getName(), build.getPublicReport(), webHookURL);
-                     }
-                 } else if (TEAMS.equals(selectedNotificationType)) {
-                     if (isNotNullOrEmpty(webHookURL)){
-                         sendWebhookNotificationTeams(master.getId(), build.getCurrentTest().getName(), build.getPublicReport(), webHookURL);
-                     }
-                 }
-
-
-            } else {
+            if (master == null) {
                 utils.getLogger().error("Failed to start build ");
-                logger.error("Failed to start test");
-                return BuildFinishedStatus.FINISHED_FAILED;
+                logger.error("Failed to start test " + testId);
+                return null;
             }
-        } catch (InterruptedException e) {
-            utils.getLogger().warn("Wait for finish has been interrupted", e);
-            interrupt(build, master);
-            return BuildFinishedStatus.INTERRUPTED;
+            lastProgressReport = System.currentTimeMillis();
+            publishReport(new ReportManifest.Entry(build.getCurrentTest().getName(), master.getId(), testId,
+                    build.getPublicReport(), startedAt, 0, null));
+            return master;
         } catch (Exception e) {
-            if (master == null) {
-                utils.getLogger().warn("Failed to start BlazeMeter test", e);
-                logger.error("Failed to start BlazeMeter test: " + e.getMessage());
-            } else {
-                utils.getLogger().warn("Caught exception while waiting for build", e);
-                logger.error("Caught exception: " + e.getMessage());
-            }
-            return BuildFinishedStatus.FINISHED_FAILED;
+            utils.getLogger().warn("Failed to start BlazeMeter test", e);
+            logger.error("Failed to start BlazeMeter test " + testId + ": " + e.getMessage());
+            return null;
         }
+    }
+
+    public String getTestId() {
+        return testId;
+    }
 
+    @Override
+    public void onRunning(Master master, int status, long elapsedMillis) {
+        long now = System.currentTimeMillis();
+        if (now - lastProgressReport >= PROGRESS_REPORT_INTERVAL) {
+            lastProgressReport = now;
+            logger.message("BlazeMeter test " + testId + " is running for " + TimeUnit.MILLISECONDS.toSeconds(elapsedMillis) + " seconds");
+        }
+        if (isMainTest) {
+            kpiReporter.onRunning(master);
+        }
+    }
+
+    /**
+     * Get reports of ended test and queue its notification
+     */
+    public BuildFinishedStatus finish() {
         BuildResult buildResult = build.doPostProcess(master);
+        reportJunit(master);
+        downloadJtl(master);
+        publishSummary(master);
+        queueNotification(buildResult);
+        publishResult(String.valueOf(buildResult));
         return mappedBuildResult(buildResult);
     }
 
+    /**
+     * Fail the build, when status of running test cannot be received
+     */
+    public BuildFinishedStatus fail(Throwable e) {
+        utils.getLogger().warn("Caught exception while waiting for build", e);
+        logger.error("Caught exception: " + e.getMessage());
+        return BuildFinishedStatus.FINISHED_FAILED;
+    }
+
+    /**
+     * Stop running test and get its reports if they are available
+     */
+    public BuildFinishedStatus interrupt() {
+        utils.getLogger().warn("Wait for finish has been interrupted");
+        interrupt(build, master);
+        publishResult(String.valueOf(BuildResult.ABORTED));
+        return BuildFinishedStatus.INTERRUPTED;
+    }
+
     public void interrupt(CiBuild build, Master master) {
         if (build != null && master != null) {
             try {
@@ -120,6 +181,7 @@ public class BzmProcess implements Callable<BuildFinishedStatus> {
                 if (hasReport) {
                     logger.message("Get reports after interrupt");
                     build.doPostProcess(master);
+                    downloadJtl(master);
                 }
             } catch (IOException e) {
                 logger.message("Failed to interrupt build " + e.getMessage());
@@ -128,14 +190,19 @@ public class BzmProcess implements Callable<BuildFinishedStatus> {
         }
     }
 
-    private void publishArtifacts(CiBuild build) {
-        File buildDirectory = new File(agentRunningBuild.getBuildTempDirectory() + "/" + agentRunningBuild.getProjectName() + "/" + agentRunningBuild.getBuildTypeName() + "/" + agentRunningBuild.getBuildNumber() + "/BlazeMeter");
-        File file = new File(buildDirectory, Constants.BZM_REPORTS_FILE);
+    private File getArtifactsDirectory() {
+        return new File(agentRunningBuild.getBuildTempDirectory() + "/" + agentRunningBuild.getProjectName() + "/" + agentRunningBuild.getBuildTypeName() + "/" + agentRunningBuild.getBuildNumber() + "/BlazeMeter");
+    }
+
+    /**
+     * Put entry of the started master to `BlazeMeterReports` manifest, shared by all BlazeMeter steps of the build
+     */
+    private void publishReport(ReportManifest.Entry entry) {
+        this.report = entry;
+        File file = new File(getArtifactsDirectory(), Constants.BZM_REPORTS_FILE);
         try {
-            FileUtils.touch(file);
-            appendStringToFile(file, "BlazeMeter report: " + build.getCurrentTest().getName() + "\r\n");
-            appendStringToFile(file, build.getPublicReport() + "\r\n");
-        } catch (IOException e) {
+            ReportManifest.update(file, entry);
+        } catch (IOException | RuntimeException e) {
             logger.warning("Failed to generate BlazeMeter report: " + e.getMessage());
             if (utils.getLogger() != null) {
                 utils.getLogger().error("Failed to generate BlazeMeter report", e);
@@ -145,29 +212,184 @@ public class BzmProcess implements Callable<BuildFinishedStatus> {
         artifactsWatcher.addNewArtifactsPath(file + "=>" + Constants.RUNNER_DISPLAY_NAME);
     }
 
-    private void appendStringToFile(File file, String content) throws IOException {
-        Files.write(Paths.get(file.toURI()), content.getBytes(), StandardOpenOption.APPEND);
+    private void publishResult(String result) {
+        if (report != null) {
+            publishReport(report.withResult(result, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Store KPIs of finished main test, so report tab shows them without requests to BlazeMeter,
+     * and report their final values to build statistics. KPIs of additional tests are written to build log
+     */
+    private void publishSummary(Master master) {
+        File file = new File(getArtifactsDirectory(), Constants.BZM_SUMMARY_FILE);
+        try {
+            KpiSummary summary = KpiSummary.fromMasterSummary(master.getSummary());
+            if (!isMainTest) {
+                logger.message(LiveKpiReporter.toProgress("BlazeMeter test " + testId + ":", summary));
+                return;
+            }
+            kpiReporter.report(summary);
+            FileUtils.writeStringToFile(file, summary.toJSON().toString(), "UTF-8");
+        } catch (Exception e) {
+            logger.warning("Failed to generate BlazeMeter summary: " + e.getMessage());
+            if (utils.getLogger() != null) {
+                utils.getLogger().warn("Failed to generate BlazeMeter summary", e);
+            }
+            return;
+        }
+        artifactsWatcher.addNewArtifactsPath(file + "=>" + Constants.RUNNER_DISPLAY_NAME);
+    }
+
+    /**
+     * JTL is downloaded here instead of CiPostProcess, so multi-GB archives are streamed to disk and resumed after errors
+     */
+    private void downloadJtl(Master master) {
+        if (!isDownloadJtl) {
+            return;
+        }
+        File reportDir = getReportDirectory(jtlPath);
+        OkHttpClient client = (utils instanceof TCBzmUtils) ? ((TCBzmUtils) utils).getHttpClient() : new OkHttpClient();
+        JtlDownloader downloader = new JtlDownloader(client, utils.getLogger());
+        List<File> jtlFiles = new ArrayList<>();
+        try {
+            for (Session session : master.getSessions()) {
+                String url = session.getJTLReport();
+                if (url == null) {
+                    logger.warning("JTL report is not available for session " + session.getId());
+                    continue;
+                }
+                List<File> files = downloader.downloadAndUnzip(url,
+                        new File(reportDir, session.getId() + ".zip"), new File(reportDir, session.getId()));
+                logger.message("JTL report of session " + session.getId() + " is saved: " + files);
+                for (File file : files) {
+                    if (file.getName().endsWith(".jtl")) {
+                        jtlFiles.add(file);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("JTL download has been interrupted");
+        } catch (Exception e) {
+            logger.warning("Failed to download JTL report: " + e.getMessage());
+            utils.getLogger().warn("Failed to download JTL report", e);
+        }
+        aggregateJtl(jtlFiles);
+    }
+
+    /**
+     * Publish statistics of all samples of downloaded JTL files (BlazeMeter.jtl.* keys) of main test
+     */
+    private void aggregateJtl(List<File> jtlFiles) {
+        if (jtlFiles.isEmpty()) {
+            return;
+        }
+        JtlAggregator aggregator = new JtlAggregator();
+        try {
+            for (File file : jtlFiles) {
+                aggregator.aggregate(file);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to aggregate JTL report: " + e.getMessage());
+            utils.getLogger().warn("Failed to aggregate JTL report", e);
+            return;
+        }
+        if (aggregator.getMalformed() > 0) {
+            logger.warning("Skipped " + aggregator.getMalformed() + " malformed rows of JTL report");
+        }
+        logger.message("JTL report of test " + testId + ": " + aggregator.getOverall().getCount() + " samples, "
+                + aggregator.getLabels().size() + " labels");
+        if (!isMainTest) {
+            return;
+        }
+        kpiReporter.reportStatistics(aggregator.toStatistics(LiveKpiReporter.STATISTIC_PREFIX + "jtl.", JTL_STATISTIC_LABELS));
+    }
+
+    /**
+     * Report test cases of JUnit report `<masterId>.xml` saved by CiPostProcess to Tests tab.
+     * Other reports of the directory belong to other masters or to previous builds
+     */
+    private void reportJunit(Master master) {
+        if (!isDownloadJunit) {
+            return;
+        }
+        File report = new File(getReportDirectory(junitPath), master.getId() + ".xml");
+        if (!report.isFile()) {
+            logger.warning("JUnit report is not found: " + report.getAbsolutePath());
+            return;
+        }
+
+        try {
+            int count = new JUnitReportProcessor(logger, master.getId()).process(report);
+            logger.message("Reported " + count + " test cases of JUnit report " + report.getName());
+        } catch (IOException e) {
+            logger.warning(e.getMessage());
+            utils.getLogger().warn("Failed to process JUnit report", e);
+        }
     }
 
+    private File getReportDirectory(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return new File(getDefaultReportDir());
+        }
+        File file = new File(path.trim());
+        return file.isAbsolute() ? file : new File(getDefaultReportDir(), path.trim());
+    }
+
+    /**
+     * Notification is sent by {@link WebhookOutbox} in background, so slow webhook does not hold the build.
+     * In digest mode only failures are sent from here, other results are collected by server
+     */
+    private void queueNotification(BuildResult buildResult) {
+        Map<String, String> params = buildRunnerContext.getRunnerParameters();
+        String webhookUrl = params.get(Constants.SETING_WEBHOOK_URL);
+        if (!isNotNullOrEmpty(webhookUrl)) {
+            return;
+        }
+        if (Constants.NOTIFICATION_MODE_DIGEST.equals(params.get(Constants.SETTING_NOTIFICATION_MODE))
+                && !isFailure(buildResult)) {
+            logger.message("Test result will be sent in digest notification");
+            return;
+        }
+        try {
+            String payload = WebhookMessages.create(params.get(Constants.SETTING_NOTIFICATION_TYPE),
+                    build.getCurrentTest().getName(), master.getId(), String.valueOf(buildResult),
+                    build.getPublicReport(), isFailure(buildResult));
+            if (payload == null) {
+                return;
+            }
+            WebhookOutbox.getInstance(agent.getConfiguration().getCacheDirectory(WebhookOutbox.DIRECTORY)).enqueue(webhookUrl.trim(), payload);
+            logger.message("Webhook notification is queued");
+        } catch (Exception e) {
+            logger.warning("Failed to queue webhook notification: " + e.getMessage());
+            utils.getLogger().warn("Failed to queue webhook notification", e);
+        }
+    }
 
+    /**
+     * Workspace and report name of build step are selected for its main test, additional tests use their own
+     */
     private CiBuild createCiBuild(Map<String, String> params) {
-        String testId = params.get(Constants.SETTINGS_ALL_TESTS_ID);
         String properties = params.get(Constants.SETTINGS_JMETER_PROPERTIES);
         String notes = params.get(Constants.SETTINGS_NOTES);
 
-        CiBuild build = new CiBuild(utils, Utils.getTestId(testId), properties, notes, createCiPostProcess(params));
-        build.setWorkspaceId(params.get(Constants.SETTINGS_ALL_WORKSPACES));
-        build.setReportName(params.get(Constants.SETTINGS_REPORT_NAME));
+        CiBuild build = new CiBuild(utils, testId, properties, notes, createCiPostProcess(params));
+        if (isMainTest) {
+            build.setWorkspaceId(params.get(Constants.SETTINGS_ALL_WORKSPACES));
+            build.setReportName(params.get(Constants.SETTINGS_REPORT_NAME));
+        }
         return build;
     }
 
     private CiPostProcess createCiPostProcess(Map<String, String> params) {
-        boolean isDownloadJtl = Boolean.valueOf(params.get(Constants.SETTINGS_JTL));
         boolean isDownloadJunit = Boolean.valueOf(params.get(Constants.SETTINGS_JUNIT));
         String junitPath = params.get(Constants.SETTINGS_JUNIT_PATH);
         String jtlPath = params.get(Constants.SETTINGS_JTL_PATH);
 
-        return new CiPostProcess(isDownloadJtl, isDownloadJunit, jtlPath, junitPath, getDefaultReportDir(), utils);
+        // JTL is downloaded by downloadJtl()
+        return new CiPostProcess(false, isDownloadJunit, jtlPath, junitPath, getDefaultReportDir(), utils);
     }
 
     private String getDefaultReportDir() {
@@ -190,117 +412,15 @@ public class BzmProcess implements Callable<BuildFinishedStatus> {
                 return BuildFinishedStatus.FINISHED_WITH_PROBLEMS;
         }
     }
-    private boolean isNotNullOrEmpty(String str) {
-        return str != null && !str.trim().isEmpty();
-    }
-    private String getColor(BuildResult buildResult) {
-        return (buildResult == BuildResult.FAILED) ? "#FF0000" : "#008000";
+    /**
+     * Same rule as the server digest, which counts every build that TeamCity marks as failed:
+     * anything that is neither successful nor aborted.
+     */
+    private static boolean isFailure(BuildResult buildResult) {
+        return buildResult != BuildResult.SUCCESS && buildResult != BuildResult.ABORTED;
     }
-    public void sendWebhookNotificationTeams(String masterId, String testName, String publicReportUrl, String webhookUrl){
-        BuildResult buildResult = build.doPostProcess(master);
-        String color = getColor(buildResult);
-        String json = "{\n"
-                + "    \"@type\": \"MessageCard\",\n"
-                + "    \"@context\": \"http://schema.org/extensions\",\n"
-                + "    \"themeColor\": \"" + color + "\",\n"
-                + "    \"summary\": \"Blazemeter Test Execution\",\n"
-                + "    \"sections\": [\n"
-                + "        {\n"
-                + "            \"activityTitle\": \"Blazemeter Test Execution\",\n"
-                + "            \"facts\": [\n"
-                + "                {\n"
-                + "                    \"name\": \"Test Name : \",\n"
-                + "                    \"value\": \"" + testName + "\"\n"
-                + "                },\n"
-                + "                {\n"
-                + "                    \"name\": \"Master ID : \",\n"
-                + "                    \"value\": \"" + masterId + "\"\n"
-                + "                },\n"
-                + "                {\n"
-                + "                    \"name\": \"Test Status : \",\n"
-                + "                    \"value\": \"" + buildResult + "\"\n"
-                + "                }\n"
-                + "            ],\n"
-                + "            \"markdown\": true\n"
-                + "        }\n"
-                + "    ],\n"
-                + "    \"potentialAction\": [\n"
-                + "        {\n"
-                + "            \"@type\": \"OpenUri\",\n"
-                + "            \"name\": \"View Report\",\n"
-                + "            \"targets\": [\n"
-                + "                {\n"
-                + "                    \"os\": \"default\",\n"
-                + "                    \"uri\": \"" + publicReportUrl + "\"\n"
-                + "                }\n"
-                + "            ]\n"
-                + "        }\n"
-                + "    ]\n"
-                + "}\n";
-        sendWebhookNotification(webhookUrl, json);
-    }
-    public void sendWebhookNotificationSlack(String masterId,String testName,String publicReportUrl,String webhookUrl){
-        BuildResult buildResult = build.doPostProcess(master);
-        String color = getColor(buildResult);
-        String jsonPayload = String.format(
-                "{" +
-                        "\"attachments\":[" +
-                        "{" +
-                        "\"title\":\"Blazemeter Test Execution\"," +
-                        "\"pretext\":\"Blazemeter Test Execution\"," +
-                        "\"fallback\":\"Blazemeter Test Execution\"," +
-                        "\"color\":\"%s\"," +
-                        "\"fields\":[" +
-                        "{" +
-                        "\"title\":\"Test Name\"," +
-                        "\"value\":\"%s\"," +
-                        "\"short\":true" +
-                        "}," +
-                        "{" +
-                        "\"title\":\"Master ID\"," +
-                        "\"value\":\"%s\"," +
-                        "\"short\":true" +
-                        "}," +
-                        "{" +
-                        "\"title\":\"Test Status\"," +
-                        "\"value\":\"%s\"," +
-                        "\"short\":true" +
-                        "}," +
-                        "{" +
-                        "\"title\":\"View Report\"," +
-                        "\"value\":\"%s\"," +
-                        "\"short\":true" +
-                        "}" +
-                        "]" +
-                        "}" +
-                        "]" +
-                        "}",
-                color, testName, masterId, buildResult, publicReportUrl);
-        sendWebhookNotification(webhookUrl, jsonPayload);
 
+    private boolean isNotNullOrEmpty(String str) {
+        return str != null && !str.trim().isEmpty();
     }
-    private void sendWebhookNotification(String webhookUrl, String jsonPayload) {
-        try{
-            URL url = new URL(webhookUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setDoOutput(true);
-
-            byte[] postData = jsonPayload.getBytes(StandardCharsets.UTF_8);
-
-            OutputStream outputStream = connection.getOutputStream();
-            outputStream.write(postData);
-
-
-            int responseCode = connection.getResponseCode();
-            logger.message("Response Code: " + responseCode);
-        }
-        catch (Exception e){
-            e.printStackTrace();
-        }
-    }
-
-
-
-}
\ No newline at end of file
+}
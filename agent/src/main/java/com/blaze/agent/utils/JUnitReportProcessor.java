@@ -0,0 +1,180 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import jetbrains.buildServer.agent.BuildProgressLogger;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports test cases of JUnit XML report to TeamCity with test service messages while the report is read by StAX,
+ * so memory does not depend on the size of the report.
+ * Failure details are cut to `bzm.junit.maxDetails` characters (by default it is 10000).
+ * Every message has flowId of the BlazeMeter process, so reports of parallel masters do not mix in Tests tab.
+ */
+public class JUnitReportProcessor {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final BuildProgressLogger logger;
+    private final String flowId;
+    private final int maxDetails;
+
+    public JUnitReportProcessor(BuildProgressLogger logger, String flowId) {
+        this(logger, flowId, Integer.getInteger("bzm.junit.maxDetails", 10000));
+    }
+
+    public JUnitReportProcessor(BuildProgressLogger logger, String flowId, int maxDetails) {
+        this.logger = logger;
+        this.flowId = flowId;
+        this.maxDetails = maxDetails;
+    }
+
+    /**
+     * @return number of reported test cases
+     */
+    public int process(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return process(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse JUnit report " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public int process(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            return process(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private int process(XMLStreamReader reader) throws XMLStreamException {
+        Deque<String> suites = new ArrayDeque<>();
+        StringBuilder details = new StringBuilder();
+        String testName = null;
+        long duration = 0;
+        boolean failed = false;
+        String failureMessage = null;
+        boolean inFailure = false;
+        int count = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("testsuite".equals(element)) {
+                    String name = attribute(reader, "name");
+                    suites.push(name);
+                    if (!name.isEmpty()) {
+                        send("testSuiteStarted", "name", name);
+                    }
+                } else if ("testcase".equals(element)) {
+                    testName = getTestName(attribute(reader, "classname"), attribute(reader, "name"));
+                    duration = parseDuration(attribute(reader, "time"));
+                    failed = false;
+                    count++;
+                    send("testStarted", "name", testName);
+                } else if (testName != null && ("failure".equals(element) || "error".equals(element))) {
+                    String message = attribute(reader, "message");
+                    failureMessage = message.isEmpty() ? attribute(reader, "type") : message;
+                    details.setLength(0);
+                    inFailure = true;
+                } else if (testName != null && "skipped".equals(element)) {
+                    send("testIgnored", "name", testName, "message", attribute(reader, "message"));
+                }
+            } else if (inFailure && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                int length = Math.min(reader.getTextLength(), maxDetails - details.length());
+                if (length > 0) {
+                    details.append(reader.getTextCharacters(), reader.getTextStart(), length);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("testsuite".equals(element)) {
+                    String name = suites.isEmpty() ? "" : suites.pop();
+                    if (!name.isEmpty()) {
+                        send("testSuiteFinished", "name", name);
+                    }
+                } else if ("testcase".equals(element) && testName != null) {
+                    send("testFinished", "name", testName, "duration", String.valueOf(duration));
+                    testName = null;
+                } else if (inFailure && ("failure".equals(element) || "error".equals(element))) {
+                    inFailure = false;
+                    if (!failed) {
+                        failed = true;
+                        send("testFailed", "name", testName, "message", failureMessage, "details", details.toString());
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static String getTestName(String className, String name) {
+        return className.isEmpty() || className.equals(name) ? name : className + "." + name;
+    }
+
+    /**
+     * @param time - seconds
+     * @return milliseconds
+     */
+    private static long parseDuration(String time) {
+        try {
+            return Math.round(Double.parseDouble(time.replace(",", "")) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    private void send(String messageName, String... attributes) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < attributes.length; i += 2) {
+            map.put(attributes[i], attributes[i + 1]);
+        }
+        map.put("flowId", flowId);
+        send(ServiceMessage.asString(messageName, map));
+    }
+
+    protected void send(String serviceMessage) {
+        logger.message(serviceMessage);
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
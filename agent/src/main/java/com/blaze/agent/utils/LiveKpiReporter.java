@@ -0,0 +1,176 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.utils.KpiSummary;
+import com.blazemeter.api.explorer.Master;
+import jetbrains.buildServer.agent.BuildProgressLogger;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports KPIs of running test to TeamCity build statistics (`buildStatisticValue` service messages)
+ * and to build progress. Summary of master is requested at most once per `bzm.kpi.interval` seconds
+ * (by default it is 30), statistic values that have not changed since the last report are not sent again.
+ * Summary is requested by the given executor, so a slow request does not hold the status poller thread;
+ * ticks are skipped while the previous request is in flight.
+ */
+public class LiveKpiReporter {
+
+    public static final String STATISTIC_PREFIX = "BlazeMeter.";
+
+    private final BuildProgressLogger logger;
+    private final Executor executor;
+    private final long interval;
+    private final Map<String, String> reported = new HashMap<>();
+    private long lastRequest;
+    private boolean requesting;
+    private boolean failureReported;
+
+    public LiveKpiReporter(BuildProgressLogger logger, Executor executor) {
+        this(logger, executor, TimeUnit.SECONDS.toMillis(Long.getLong("bzm.kpi.interval", 30)));
+    }
+
+    public LiveKpiReporter(BuildProgressLogger logger, Executor executor, long interval) {
+        this.logger = logger;
+        this.executor = executor;
+        this.interval = interval;
+        this.lastRequest = System.currentTimeMillis();
+    }
+
+    /**
+     * Request summary of running master in background and report it,
+     * if interval since the previous request is passed and the previous request is completed
+     */
+    public void onRunning(final Master master) {
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (requesting || now - lastRequest < interval) {
+                return;
+            }
+            lastRequest = now;
+            requesting = true;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        request(master);
+                    } finally {
+                        synchronized (LiveKpiReporter.this) {
+                            requesting = false;
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                requesting = false;
+            }
+        }
+    }
+
+    private void request(Master master) {
+        KpiSummary summary;
+        try {
+            summary = KpiSummary.fromMasterSummary(master.getSummary());
+        } catch (Exception e) {
+            synchronized (this) {
+                if (!failureReported) {
+                    failureReported = true;
+                    logger.message("Failed to get KPIs of running BlazeMeter test: " + e.getMessage());
+                }
+            }
+            return;
+        }
+        report(summary);
+    }
+
+    /**
+     * Report changed KPIs and progress message
+     */
+    public synchronized void report(KpiSummary summary) {
+        reportStatistics(toStatistics(summary));
+        progress(toProgress(summary));
+    }
+
+    /**
+     * Send statistic values that have changed since the last report
+     */
+    public synchronized void reportStatistics(Map<String, String> statistics) {
+        for (Map.Entry<String, String> entry : statistics.entrySet()) {
+            if (!entry.getValue().equals(reported.get(entry.getKey()))) {
+                Map<String, String> attributes = new LinkedHashMap<>();
+                attributes.put("key", entry.getKey());
+                attributes.put("value", entry.getValue());
+                send(ServiceMessage.asString("buildStatisticValue", attributes));
+                reported.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    protected void send(String serviceMessage) {
+        logger.message(serviceMessage);
+    }
+
+    protected void progress(String message) {
+        logger.progressMessage(message);
+    }
+
+    /**
+     * @return statistic keys and values, absent KPIs are skipped
+     */
+    public static Map<String, String> toStatistics(KpiSummary summary) {
+        Map<String, String> values = new LinkedHashMap<>();
+        putIfPresent(values, "throughput", summary.getThroughput(), "%.2f");
+        putIfPresent(values, "errorRate", summary.getErrorRate(), "%.2f");
+        putIfPresent(values, "avgLatency", summary.getAvgLatency(), "%.0f");
+        putIfPresent(values, "p90", summary.getP90(), "%.0f");
+        putIfPresent(values, "p95", summary.getP95(), "%.0f");
+        putIfPresent(values, "p99", summary.getP99(), "%.0f");
+        putIfPresent(values, "users", summary.getMaxUsers(), "%.0f");
+        return values;
+    }
+
+    private static void putIfPresent(Map<String, String> values, String key, double value, String pattern) {
+        if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+            values.put(STATISTIC_PREFIX + key, String.format(Locale.US, pattern, value));
+        }
+    }
+
+    static String toProgress(KpiSummary summary) {
+        return toProgress("BlazeMeter:", summary);
+    }
+
+    static String toProgress(String title, KpiSummary summary) {
+        StringBuilder builder = new StringBuilder(title);
+        for (Map.Entry<String, String> row : summary.toRows().entrySet()) {
+            if (!"N/A".equals(row.getValue())) {
+                builder.append(builder.length() > title.length() ? ", " : " ");
+                builder.append(row.getKey()).append(' ').append(row.getValue());
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.agent.logging.BzmAgentSystemLogger;
+import com.blazemeter.api.explorer.Master;
+import com.blazemeter.api.logging.Logger;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Agent-wide poller of BlazeMeter masters status. One timer thread checks which masters are due and
+ * a fixed pool of `bzm.poller.threads` threads (by default it is 4) requests their status, so the number of threads
+ * does not depend on the number of running tests.
+ * Interval between polls of each master is chosen by {@link PollingPolicy}, durations of ended tests are remembered
+ * to speed up polling near the expected end of their next runs.
+ * Watch fails after `bzm.poller.maxErrors` consecutive failed requests (by default it is 5).
+ */
+public class MasterStatusPoller {
+
+    /**
+     * Status code of ended master
+     */
+    public static final int ENDED = 140;
+
+    private static final MasterStatusPoller INSTANCE = new MasterStatusPoller(
+            Integer.getInteger("bzm.poller.threads", 4),
+            new PollingPolicy(),
+            Long.getLong("bzm.poller.tick", 1000),
+            Integer.getInteger("bzm.poller.maxErrors", 5));
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Receives status of running master, called from poller threads
+     */
+    public interface Listener {
+        void onRunning(Master master, int status, long elapsedMillis);
+    }
+
+    private final Logger logger = new BzmAgentSystemLogger();
+    private final PollingPolicy policy;
+    private final int maxErrors;
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(createThreadFactory("bzm-master-poller-timer"));
+    private final ExecutorService workers;
+
+    MasterStatusPoller(int threads, PollingPolicy policy, long tick, int maxErrors) {
+        this.policy = policy;
+        this.maxErrors = maxErrors;
+        this.workers = Executors.newFixedThreadPool(threads, createThreadFactory("bzm-master-poller"));
+        timer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    public static MasterStatusPoller getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start polling of master status.
+     * Cancel the returned future to stop polling, e.g. when build is interrupted.
+     *
+     * @return future that is completed when master is ended
+     */
+    public CompletableFuture<Void> watch(Master master, Listener listener) {
+        return watch(master, null, listener);
+    }
+
+    /**
+     * Start polling of master status.
+     * Cancel the returned future to stop polling, e.g. when build is interrupted.
+     *
+     * @param testId - id of the started test, used to predict the end of the test by duration of its previous run
+     * @return future that is completed when master is ended
+     */
+    public CompletableFuture<Void> watch(Master master, String testId, Listener listener) {
+        final Watch watch = new Watch(master, testId, listener, System.currentTimeMillis());
+        watches.add(watch);
+        watch.future.whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void result, Throwable throwable) {
+                watches.remove(watch);
+            }
+        });
+        return watch.future;
+    }
+
+    int size() {
+        return watches.size();
+    }
+
+    /**
+     * @return duration of the last ended run of the test or 0 if it is unknown
+     */
+    long getExpectedDuration(String testId) {
+        Long duration = testId == null ? null : durations.get(testId);
+        return duration == null ? 0 : duration;
+    }
+
+    void shutdown() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (final Watch watch : watches) {
+            if (watch.inFlight || watch.future.isDone() || now < watch.nextPollAt) {
+                continue;
+            }
+            watch.inFlight = true;
+            try {
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        poll(watch);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                watch.inFlight = false;
+                watch.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void poll(Watch watch) {
+        try {
+            int status = watch.master.getStatus();
+            watch.errors = 0;
+            long now = System.currentTimeMillis();
+            long elapsed = now - watch.startedAt;
+            if (status == ENDED) {
+                if (watch.testId != null) {
+                    durations.put(watch.testId, elapsed);
+                }
+                watch.future.complete(null);
+                return;
+            }
+            boolean statusChanged = status != watch.lastStatus;
+            watch.lastStatus = status;
+            watch.interval = policy.nextInterval(elapsed, watch.interval, statusChanged, getExpectedDuration(watch.testId));
+            watch.nextPollAt = now + watch.interval;
+            notifyListener(watch, status, now);
+        } catch (Throwable e) {
+            if (++watch.errors >= maxErrors) {
+                watch.future.completeExceptionally(e);
+            } else {
+                logger.warn("Failed to get status of master id=" + watch.master.getId() + ", will retry", e);
+                watch.nextPollAt = System.currentTimeMillis() + watch.interval;
+            }
+        } finally {
+            watch.inFlight = false;
+        }
+    }
+
+    private void notifyListener(Watch watch, int status, long now) {
+        if (watch.listener != null) {
+            try {
+                watch.listener.onRunning(watch.master, status, now - watch.startedAt);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to process status of master id=" + watch.master.getId(), e);
+            }
+        }
+    }
+
+    private static ThreadFactory createThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, prefix + "-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private final class Watch {
+        private final Master master;
+        private final String testId;
+        private final Listener listener;
+        private final long startedAt;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile long nextPollAt;
+        private volatile boolean inFlight;
+        private int errors;
+        private int lastStatus = -1;
+        private long interval;
+
+        private Watch(Master master, String testId, Listener listener, long startedAt) {
+            this.master = master;
+            this.testId = testId;
+            this.listener = listener;
+            this.startedAt = startedAt;
+            this.interval = policy.getMinInterval();
+            this.nextPollAt = startedAt + interval;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interval between requests of master status.
+ * Master is polled every `bzm.poller.minInterval` milliseconds (by default it is 2000) during the first
+ * `bzm.poller.rampUp` seconds of the test (by default it is 120) and after every change of its status.
+ * Then interval is doubled after each poll up to `bzm.poller.maxInterval` milliseconds (by default it is 30000),
+ * which is the longest delay of finish detection.
+ * When previous run of the same test is known, interval goes back to the minimum within `maxInterval` of its duration.
+ */
+public class PollingPolicy {
+
+    private final long minInterval;
+    private final long maxInterval;
+    private final long rampUp;
+
+    public PollingPolicy() {
+        this(Long.getLong("bzm.poller.minInterval", 2000),
+                Long.getLong("bzm.poller.maxInterval", 30000),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.poller.rampUp", 120)));
+    }
+
+    public PollingPolicy(long minInterval, long maxInterval, long rampUp) {
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+        this.rampUp = rampUp;
+    }
+
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+    /**
+     * @param elapsed          - time since test start
+     * @param previousInterval - interval used before the last poll
+     * @param statusChanged    - true if the last poll returned another status than the one before
+     * @param expectedDuration - duration of previous run of the same test or 0 if it is unknown
+     * @return delay before the next poll
+     */
+    public long nextInterval(long elapsed, long previousInterval, boolean statusChanged, long expectedDuration) {
+        if (statusChanged || elapsed < rampUp) {
+            return minInterval;
+        }
+
+        if (expectedDuration > 0) {
+            long fastFrom = expectedDuration - maxInterval;
+            long fastTo = expectedDuration + maxInterval;
+            if (elapsed >= fastFrom && elapsed <= fastTo) {
+                return minInterval;
+            }
+        }
+
+        long interval = Math.min(maxInterval, Math.max(minInterval, previousInterval * 2));
+        if (expectedDuration > 0) {
+            long untilFast = expectedDuration - maxInterval - elapsed;
+            if (untilFast > 0) {
+                interval = Math.min(interval, Math.max(minInterval, untilFast));
+            }
+        }
+        return interval;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.agent.logging.BzmAgentSystemLogger;
+import com.blaze.plugins.PluginInfo;
+import com.blazemeter.api.http.HttpUtils;
+import com.blazemeter.api.logging.Logger;
+import com.blazemeter.api.logging.UserNotifier;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Agent-wide check for new versions of the plugin.
+ * The check runs in background at most once per `bzm.plugin.updates.interval` minutes (by default it is 1440),
+ * builds only read the last known result, so they are never delayed by plugins.jetbrains.com.
+ */
+public class UpdateChecker {
+
+    private static final UpdateChecker INSTANCE = new UpdateChecker(
+            TimeUnit.MINUTES.toMillis(Long.getLong("bzm.plugin.updates.interval", 1440)));
+
+    private final Logger logger = new BzmAgentSystemLogger();
+    private final long interval;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "bzm-plugin-updates");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private volatile long lastCheck;
+    private volatile Boolean hasUpdates;
+
+    UpdateChecker(long interval) {
+        this.interval = interval;
+    }
+
+    public static UpdateChecker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start the check in background if the last one is older than the interval
+     */
+    public void checkInBackground() {
+        long now = System.currentTimeMillis();
+        if (lastCheck != 0 && now - lastCheck < interval) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        lastCheck = now;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        hasUpdates = check();
+                    } catch (Throwable e) {
+                        logger.warn("Can not check for updates", e);
+                    } finally {
+                        running.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            logger.warn("Can not schedule check for updates", e);
+        }
+    }
+
+    /**
+     * @return result of the last finished check or null if there was no such check
+     */
+    public Boolean getCachedResult() {
+        return hasUpdates;
+    }
+
+    protected boolean check() {
+        HttpUtils utils = new HttpUtils(new UserNotifier() {
+            @Override
+            public void notifyInfo(String info) {
+                logger.info(info);
+            }
+
+            @Override
+            public void notifyWarning(String warning) {
+                logger.warn(warning);
+            }
+
+            @Override
+            public void notifyError(String error) {
+                logger.error(error);
+            }
+        }, logger);
+        return new PluginInfo(utils).hasUpdates();
+    }
+}
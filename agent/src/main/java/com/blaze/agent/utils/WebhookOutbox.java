@@ -0,0 +1,265 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.agent.logging.BzmAgentSystemLogger;
+import com.blaze.notifications.WebhookSender;
+import com.blazemeter.api.logging.Logger;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agent-wide queue of webhook notifications, delivered in background so a slow endpoint never holds the build.
+ * Every notification is stored as a file in the outbox directory until it is delivered, so it survives agent restart.
+ * Failed requests are retried up to `bzm.webhook.maxAttempts` times (by default it is 6) with delay
+ * `bzm.webhook.retryDelay` seconds (by default it is 10) doubled after every attempt.
+ * Webhook url is a secret, so the outbox directory and its files are accessible by the agent user only.
+ */
+public class WebhookOutbox {
+
+    /**
+     * Name of the outbox directory in the agent cache
+     */
+    public static final String DIRECTORY = "blazemeter-webhooks";
+
+    private static final long MAX_RETRY_DELAY = TimeUnit.HOURS.toMillis(1);
+    private static final long CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+    private static final String EXTENSION = ".webhook";
+
+    private static WebhookOutbox instance;
+
+    private final Logger logger = new BzmAgentSystemLogger();
+    private final AtomicLong counter = new AtomicLong();
+    private final File directory;
+    private final WebhookSender sender;
+    private final int maxAttempts;
+    private final long retryDelay;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "bzm-webhook-outbox");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    WebhookOutbox(File directory, WebhookSender sender, int maxAttempts, long retryDelay) {
+        this.directory = directory;
+        this.sender = sender;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * @param directory - outbox directory, used by the first call only
+     */
+    public static synchronized WebhookOutbox getInstance(File directory) {
+        if (instance == null) {
+            instance = new WebhookOutbox(directory, new WebhookSender(),
+                    Integer.getInteger("bzm.webhook.maxAttempts", 6),
+                    TimeUnit.SECONDS.toMillis(Long.getLong("bzm.webhook.retryDelay", 10)));
+            instance.start();
+        }
+        return instance;
+    }
+
+    private void start() {
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                deliverDue();
+            }
+        }, 0, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Store notification and start its delivery
+     */
+    public void enqueue(String url, String payload) throws IOException {
+        if (!WebhookSender.isValidUrl(url)) {
+            throw new IllegalArgumentException("Invalid webhook url");
+        }
+        Properties entry = new Properties();
+        entry.setProperty("url", url);
+        entry.setProperty("payload", payload);
+        entry.setProperty("attempts", "0");
+        entry.setProperty("nextAttemptAt", "0");
+        write(new File(directory, System.currentTimeMillis() + "-" + counter.incrementAndGet() + EXTENSION), entry);
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliverDue();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Webhook outbox is stopped, notification will be sent after restart");
+        }
+    }
+
+    /**
+     * Send all notifications whose next attempt time has come, in order of their creation
+     */
+    synchronized void deliverDue() {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(EXTENSION);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            try {
+                deliver(file);
+            } catch (IOException e) {
+                logger.warn("Failed to process webhook notification " + file.getName(), e);
+            } catch (RuntimeException e) {
+                logger.error("Webhook notification " + file.getName() + " is corrupted and dropped", e);
+                delete(file);
+            }
+        }
+    }
+
+    private void deliver(File file) throws IOException {
+        Properties entry = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            entry.load(reader);
+        }
+        long now = System.currentTimeMillis();
+        if (Long.parseLong(entry.getProperty("nextAttemptAt", "0")) > now) {
+            return;
+        }
+
+        String url = entry.getProperty("url");
+        int attempts = Integer.parseInt(entry.getProperty("attempts", "0")) + 1;
+        String error;
+        boolean retriable;
+        try {
+            int code = sender.send(url, entry.getProperty("payload"));
+            if (WebhookSender.isSuccessful(code)) {
+                logger.info("Webhook notification is delivered, response code: " + code);
+                delete(file);
+                return;
+            }
+            error = "response code " + code;
+            retriable = WebhookSender.isRetriable(code);
+        } catch (IOException e) {
+            error = e.getMessage();
+            retriable = true;
+        } catch (IllegalArgumentException e) {
+            error = "invalid request: " + e.getMessage();
+            retriable = false;
+        }
+
+        if (!retriable || attempts >= maxAttempts) {
+            logger.error("Webhook notification is dropped after " + attempts + " attempts: " + error);
+            delete(file);
+            return;
+        }
+        long delay = Math.min(MAX_RETRY_DELAY, retryDelay << Math.min(attempts - 1, 20));
+        logger.warn("Failed to deliver webhook notification (" + error + "), retry in " + delay + " ms");
+        entry.setProperty("attempts", String.valueOf(attempts));
+        entry.setProperty("nextAttemptAt", String.valueOf(now + delay));
+        write(file, entry);
+    }
+
+    /**
+     * Temporary file is created accessible by owner only, the move keeps its permissions
+     */
+    private void write(File file, Properties entry) throws IOException {
+        createDirectory();
+        File tmpFile = Files.createTempFile(directory.toPath(), file.getName(), ".tmp").toFile();
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+                entry.store(writer, null);
+            }
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tmpFile.exists() && !tmpFile.delete()) {
+                logger.warn("Cannot delete " + tmpFile.getAbsolutePath());
+            }
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        FileUtils.forceMkdir(directory);
+        try {
+            Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+        } catch (UnsupportedOperationException e) {
+            directory.setReadable(false, false);
+            directory.setReadable(true, true);
+            directory.setWritable(false, false);
+            directory.setWritable(true, true);
+            directory.setExecutable(false, false);
+            directory.setExecutable(true, true);
+        }
+    }
+
+    private void delete(File file) {
+        if (!file.delete()) {
+            logger.warn("Cannot delete webhook notification " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return number of notifications that are not delivered yet
+     */
+    int size() {
+        String[] names = directory.list();
+        int count = 0;
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(EXTENSION)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent;
+
+import jetbrains.buildServer.agent.BuildFinishedStatus;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class BzmBuildProcessTest {
+
+    @Test
+    public void testAggregate() throws Exception {
+        assertEquals(BuildFinishedStatus.FINISHED_SUCCESS, BzmBuildProcess.aggregate(Collections.<BuildFinishedStatus>emptyList()));
+        assertEquals(BuildFinishedStatus.FINISHED_SUCCESS, BzmBuildProcess.aggregate(Arrays.asList(
+                BuildFinishedStatus.FINISHED_SUCCESS, BuildFinishedStatus.FINISHED_SUCCESS)));
+        assertEquals(BuildFinishedStatus.FINISHED_WITH_PROBLEMS, BzmBuildProcess.aggregate(Arrays.asList(
+                BuildFinishedStatus.FINISHED_SUCCESS, BuildFinishedStatus.FINISHED_WITH_PROBLEMS)));
+        assertEquals(BuildFinishedStatus.FINISHED_FAILED, BzmBuildProcess.aggregate(Arrays.asList(
+                BuildFinishedStatus.FINISHED_WITH_PROBLEMS, BuildFinishedStatus.FINISHED_FAILED, BuildFinishedStatus.FINISHED_SUCCESS)));
+        assertEquals(BuildFinishedStatus.INTERRUPTED, BzmBuildProcess.aggregate(Arrays.asList(
+                BuildFinishedStatus.FINISHED_FAILED, BuildFinishedStatus.INTERRUPTED)));
+    }
+}
@@ -12,12 +12,16 @@
  * limitations under the License.
  */
 
-
 package com.blaze.agent.logging;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
 
@@ -44,4 +48,68 @@ public class BzmAgentLoggerTest {
 
         assertTrue(file.length() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRotation() throws Exception {
+        File file = File.createTempFile("tmp-log-file", ".log");
+
+        BzmAgentLogger logger = new BzmAgentLogger(file, 100000, 10 * 1024, 2, 10000);
+        for (int i = 0; i < 10000; i++) {
+            logger.debug("Master status is 100, iteration " + i);
+        }
+        logger.close();
+        logger.info("after close");
+
+        assertTrue(file.exists());
+        assertTrue(file.length() < 11 * 1024);
+        assertTrue(logger.archive(1).exists());
+        assertTrue(logger.archive(2).exists());
+        assertFalse(logger.archive(3).exists());
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(logger.archive(1))), "UTF-8"));
+        try {
+            assertTrue(reader.readLine().contains("DEBUG - Master status is 100, iteration"));
+        } finally {
+            reader.close();
+        }
+        assertTrue(FileUtils.readFileToString(file, "UTF-8").contains("iteration 9999"));
+        assertFalse(FileUtils.readFileToString(file, "UTF-8").contains("after close"));
+
+        FileUtils.deleteQuietly(logger.archive(1));
+        FileUtils.deleteQuietly(logger.archive(2));
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Test
+    public void testUtf8Length() throws Exception {
+        String line = "latency \u00b5s, \u0442\u0435\u0441\u0442, \u6e2c\u8a66 \ud83d\ude80";
+        assertEquals(line.getBytes("UTF-8").length, BzmAgentLogger.utf8Length(line));
+    }
+
+    @Test
+    public void testDeleteExpired() throws Exception {
+        File logs = File.createTempFile("tmp-logs", "");
+        assertTrue(logs.delete());
+        File oldBuild = new File(logs, "project" + File.separator + "1");
+        File newBuild = new File(logs, "project" + File.separator + "2");
+        File otherBuild = new File(logs, "other" + File.separator + "1");
+        File oldLog = new File(oldBuild, BzmAgentLogger.FILE_PREFIX + "1");
+        File oldArchive = new File(oldBuild, BzmAgentLogger.FILE_PREFIX + "1.1.gz");
+        File newLog = new File(newBuild, BzmAgentLogger.FILE_PREFIX + "2");
+        File otherFile = new File(otherBuild, "other.log");
+        for (File file : new File[]{oldLog, oldArchive, newLog, otherFile}) {
+            FileUtils.touch(file);
+        }
+        long weekAgo = System.currentTimeMillis() - 7 * 24 * 3600 * 1000L;
+        assertTrue(oldLog.setLastModified(weekAgo));
+        assertTrue(oldArchive.setLastModified(weekAgo));
+        assertTrue(otherFile.setLastModified(weekAgo));
+
+        assertEquals(2, BzmAgentLogger.deleteExpired(logs, 24 * 3600 * 1000L));
+        assertFalse(oldBuild.exists());
+        assertTrue(newLog.exists());
+        assertTrue(otherFile.exists());
+
+        FileUtils.deleteDirectory(logs);
+    }
+}
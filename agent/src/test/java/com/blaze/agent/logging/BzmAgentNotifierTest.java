@@ -18,6 +18,9 @@ import jetbrains.buildServer.agent.BuildProgressLogger;
 import jetbrains.buildServer.agent.NullBuildProgressLogger;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class BzmAgentNotifierTest {
@@ -50,4 +53,88 @@ public class BzmAgentNotifierTest {
 
         assertEquals(13, buffer.length());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCoalescing() throws Exception {
+        final List<String> messages = new ArrayList<>();
+        BuildProgressLogger buildProgressLogger = new NullBuildProgressLogger() {
+
+            @Override
+            public void message(String message) {
+                messages.add(message);
+            }
+
+            @Override
+            public void warning(String message) {
+                messages.add("WARN " + message);
+            }
+        };
+        BzmAgentNotifier notifier = new BzmAgentNotifier(buildProgressLogger, 1000);
+
+        for (int i = 1; i <= 10; i++) {
+            notifier.notifyInfo("Check if the test is still running. Time passed since start: " + i + " minutes.");
+        }
+        notifier.notifyInfo("Test has ended");
+        notifier.notifyInfo("Test has ended");
+        notifier.notifyInfo("Master 1 has ended");
+        notifier.notifyInfo("Master 2 has ended");
+        notifier.notifyInfo("Report: https://a.blazemeter.com/app/#/masters/1");
+        notifier.notifyInfo("Report: https://a.blazemeter.com/app/#/masters/1");
+        notifier.notifyWarning("warn");
+
+        assertEquals(9, messages.size());
+        assertEquals("Check if the test is still running. Time passed since start: 1 minutes.", messages.get(0));
+        assertEquals("Check if the test is still running. Time passed since start: 10 minutes. (9 similar messages collapsed)", messages.get(1));
+        assertEquals("Test has ended", messages.get(2));
+        assertEquals("Test has ended (1 similar messages collapsed)", messages.get(3));
+        assertEquals("Master 1 has ended", messages.get(4));
+        assertEquals("Master 2 has ended", messages.get(5));
+        assertEquals("Report: https://a.blazemeter.com/app/#/masters/1", messages.get(6));
+        assertEquals("Report: https://a.blazemeter.com/app/#/masters/1", messages.get(7));
+        assertEquals("WARN warn", messages.get(8));
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        final List<String> messages = new ArrayList<>();
+        BuildProgressLogger buildProgressLogger = new NullBuildProgressLogger() {
+
+            @Override
+            public void message(String message) {
+                messages.add(message);
+            }
+        };
+        BzmAgentNotifier notifier = new BzmAgentNotifier(buildProgressLogger, 5);
+
+        for (int i = 0; i < 100; i++) {
+            notifier.notifyInfo(i % 2 == 0 ? "Request " + i : "Response " + i);
+        }
+        assertTrue(messages.size() < 20);
+
+        notifier.flush();
+        String last = messages.get(messages.size() - 1);
+        assertTrue(last, last.endsWith("messages were suppressed by rate limit"));
+    }
+
+    @Test
+    public void testUrlIsNotRateLimited() throws Exception {
+        final List<String> messages = new ArrayList<>();
+        BuildProgressLogger buildProgressLogger = new NullBuildProgressLogger() {
+
+            @Override
+            public void message(String message) {
+                messages.add(message);
+            }
+        };
+        BzmAgentNotifier notifier = new BzmAgentNotifier(buildProgressLogger, 1);
+
+        notifier.notifyInfo("Request 1");
+        notifier.notifyInfo("Request 2");
+        notifier.notifyInfo("Report: https://a.blazemeter.com/app/#/masters/1");
+
+        assertEquals(3, messages.size());
+        assertEquals("Request 1", messages.get(0));
+        assertEquals("1 messages were suppressed by rate limit", messages.get(1));
+        assertEquals("Report: https://a.blazemeter.com/app/#/masters/1", messages.get(2));
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JUnitReportProcessorTest {
+
+    private static class CollectingProcessor extends JUnitReportProcessor {
+        private final List<String> messages = new ArrayList<>();
+
+        CollectingProcessor(int maxDetails) {
+            super(null, "100", maxDetails);
+        }
+
+        @Override
+        protected void send(String serviceMessage) {
+            messages.add(serviceMessage);
+        }
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<testsuites>\n"
+                + "  <testsuite name=\"BlazeMeter\" tests=\"3\" failures=\"1\">\n"
+                + "    <testcase classname=\"com.blazemeter\" name=\"errors\" time=\"1.5\"/>\n"
+                + "    <testcase classname=\"com.blazemeter\" name=\"responseTime.avg\" time=\"0.25\">\n"
+                + "      <failure message=\"Avg response time is 300 ms\"><![CDATA[Threshold is 200 ms, actual value is 300 ms]]></failure>\n"
+                + "    </testcase>\n"
+                + "    <testcase name=\"skipped\"><skipped message=\"disabled\"/></testcase>\n"
+                + "  </testsuite>\n"
+                + "</testsuites>\n";
+
+        CollectingProcessor processor = new CollectingProcessor(20);
+        assertEquals(3, processor.process(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+
+        List<String> messages = processor.messages;
+        assertEquals(10, messages.size());
+        assertEquals("##teamcity[testSuiteStarted name='BlazeMeter' flowId='100']", messages.get(0));
+        assertEquals("##teamcity[testStarted name='com.blazemeter.errors' flowId='100']", messages.get(1));
+        assertEquals("##teamcity[testFinished name='com.blazemeter.errors' duration='1500' flowId='100']", messages.get(2));
+        assertTrue(messages.get(4), messages.get(4).startsWith("##teamcity[testFailed name='com.blazemeter.responseTime.avg' message='Avg response time is 300 ms'"));
+        assertTrue(messages.get(4), messages.get(4).contains("details='Threshold is 200 ms,' flowId='100']"));
+        assertEquals("##teamcity[testFinished name='com.blazemeter.responseTime.avg' duration='250' flowId='100']", messages.get(5));
+        assertEquals("##teamcity[testIgnored name='skipped' message='disabled' flowId='100']", messages.get(7));
+        assertEquals("##teamcity[testSuiteFinished name='BlazeMeter' flowId='100']", messages.get(9));
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.utils.KpiSummary;
+import com.blazemeter.api.explorer.Master;
+import jetbrains.buildServer.agent.BuildProgressLogger;
+import jetbrains.buildServer.agent.NullBuildProgressLogger;
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LiveKpiReporterTest {
+
+    @Test
+    public void testReport() throws Exception {
+        final List<String> messages = new ArrayList<>();
+        final List<String> progress = new ArrayList<>();
+        BuildProgressLogger logger = new NullBuildProgressLogger() {
+            @Override
+            public void message(String message) {
+                messages.add(message);
+            }
+
+            @Override
+            public void progressMessage(String message) {
+                progress.add(message);
+            }
+        };
+        LiveKpiReporter reporter = new LiveKpiReporter(logger, null, 0);
+
+        reporter.report(new KpiSummary(12.345, 0.5, 230, 400, Double.NaN, 900, 50));
+        assertEquals(6, messages.size());
+        assertTrue(messages.get(0).startsWith("##teamcity[buildStatisticValue"));
+        assertTrue(messages.get(0).contains("key='BlazeMeter.throughput'"));
+        assertTrue(messages.get(0).contains("value='12.35'"));
+        assertEquals(1, progress.size());
+        assertEquals("BlazeMeter: Throughput 12.35 hits/s, Error rate 0.50 %, Average latency 230 ms, 90% line 400 ms, 99% line 900 ms, Max users 50",
+                progress.get(0));
+
+        reporter.report(new KpiSummary(12.345, 0.5, 250, 400, Double.NaN, 900, 50));
+        assertEquals(7, messages.size());
+        assertTrue(messages.get(6).contains("key='BlazeMeter.avgLatency'"));
+        assertEquals(2, progress.size());
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        Map<String, String> values = LiveKpiReporter.toStatistics(new KpiSummary(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 10));
+        assertEquals(1, values.size());
+        assertEquals("10", values.get("BlazeMeter.users"));
+    }
+
+    @Test
+    public void testRequestInBackground() throws Exception {
+        final List<String> progress = new ArrayList<>();
+        BuildProgressLogger logger = new NullBuildProgressLogger() {
+            @Override
+            public void progressMessage(String message) {
+                progress.add(message);
+            }
+        };
+        final List<Runnable> tasks = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final int[] requests = new int[1];
+        Master master = new Master(null, "1", "master") {
+            @Override
+            public JSONObject getSummary() throws IOException {
+                requests[0]++;
+                JSONObject summary = new JSONObject();
+                summary.put("hits_avg", 10);
+                return summary;
+            }
+        };
+        LiveKpiReporter reporter = new LiveKpiReporter(logger, executor, 0);
+
+        reporter.onRunning(master);
+        reporter.onRunning(master);
+        assertEquals(1, tasks.size());
+        assertEquals(0, requests[0]);
+
+        tasks.get(0).run();
+        assertEquals(1, requests[0]);
+        assertEquals(1, progress.size());
+
+        reporter.onRunning(master);
+        assertEquals(2, tasks.size());
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.agent.logging.BzmAgentSystemLogger;
+import com.blaze.utils.TCBzmUtils;
+import com.blazemeter.api.explorer.Master;
+import com.blazemeter.api.utils.BlazeMeterUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MasterStatusPollerTest {
+
+    private final BlazeMeterUtils utils = new TCBzmUtils("id", "secret", "address", null, new BzmAgentSystemLogger());
+
+    private static class FakeMaster extends Master {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final int runningPolls;
+        private final boolean broken;
+
+        FakeMaster(BlazeMeterUtils utils, String id, int runningPolls, boolean broken) {
+            super(utils, id, "master");
+            this.runningPolls = runningPolls;
+            this.broken = broken;
+        }
+
+        @Override
+        public int getStatus() throws IOException {
+            if (broken) {
+                calls.incrementAndGet();
+                throw new IOException("Connection refused");
+            }
+            return calls.incrementAndGet() > runningPolls ? MasterStatusPoller.ENDED : 100;
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        MasterStatusPoller poller = new MasterStatusPoller(2, new PollingPolicy(20, 20, 0), 5, 3);
+        final AtomicInteger running = new AtomicInteger();
+        MasterStatusPoller.Listener listener = new MasterStatusPoller.Listener() {
+            @Override
+            public void onRunning(Master master, int status, long elapsedMillis) {
+                running.incrementAndGet();
+            }
+        };
+
+        FakeMaster[] masters = new FakeMaster[20];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[masters.length];
+        for (int i = 0; i < masters.length; i++) {
+            masters[i] = new FakeMaster(utils, String.valueOf(i), 3, false);
+            futures[i] = poller.watch(masters[i], "test" + (i % 2), listener);
+        }
+        CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+
+        for (FakeMaster master : masters) {
+            assertEquals(4, master.calls.get());
+        }
+        assertEquals(3 * masters.length, running.get());
+        assertEquals(0, poller.size());
+        assertTrue(poller.getExpectedDuration("test0") > 0);
+        assertTrue(poller.getExpectedDuration("test1") > 0);
+        assertEquals(0, poller.getExpectedDuration("unknown"));
+        poller.shutdown();
+    }
+
+    @Test
+    public void testErrorsAndCancel() throws Exception {
+        MasterStatusPoller poller = new MasterStatusPoller(1, new PollingPolicy(20, 20, 0), 5, 3);
+
+        FakeMaster broken = new FakeMaster(utils, "1", 0, true);
+        try {
+            poller.watch(broken, null).get(10, TimeUnit.SECONDS);
+            fail("Watch of broken master must fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(3, broken.calls.get());
+
+        FakeMaster endless = new FakeMaster(utils, "2", Integer.MAX_VALUE, false);
+        CompletableFuture<Void> future = poller.watch(endless, null);
+        assertEquals(1, poller.size());
+        future.cancel(false);
+        Thread.sleep(100);
+        int calls = endless.calls.get();
+        Thread.sleep(100);
+        assertEquals(calls, endless.calls.get());
+        assertEquals(0, poller.size());
+        poller.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PollingPolicyTest {
+
+    private final PollingPolicy policy = new PollingPolicy(2000, 30000, 120000);
+
+    @Test
+    public void testBackoff() throws Exception {
+        assertEquals(2000, policy.nextInterval(10000, 2000, false, 0));
+        assertEquals(4000, policy.nextInterval(130000, 2000, false, 0));
+        assertEquals(8000, policy.nextInterval(134000, 4000, false, 0));
+        assertEquals(30000, policy.nextInterval(600000, 16000, false, 0));
+        assertEquals(30000, policy.nextInterval(600000, 30000, false, 0));
+        assertEquals(2000, policy.nextInterval(630000, 30000, true, 0));
+    }
+
+    @Test
+    public void testExpectedEnd() throws Exception {
+        long expected = 600000;
+        assertEquals(30000, policy.nextInterval(300000, 30000, false, expected));
+        assertEquals(10000, policy.nextInterval(560000, 30000, false, expected));
+        assertEquals(2000, policy.nextInterval(570000, 30000, false, expected));
+        assertEquals(2000, policy.nextInterval(620000, 2000, false, expected));
+        assertEquals(4000, policy.nextInterval(640000, 2000, false, expected));
+    }
+}
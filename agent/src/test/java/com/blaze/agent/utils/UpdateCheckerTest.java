@@ -0,0 +1,58 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateCheckerTest {
+
+    private static class CountingChecker extends UpdateChecker {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingChecker(long interval) {
+            super(interval);
+        }
+
+        @Override
+        protected boolean check() {
+            calls.incrementAndGet();
+            return true;
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        CountingChecker checker = new CountingChecker(60000);
+        assertNull(checker.getCachedResult());
+
+        checker.checkInBackground();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (checker.getCachedResult() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(checker.getCachedResult());
+
+        checker.checkInBackground();
+        checker.checkInBackground();
+        Thread.sleep(100);
+        assertEquals(1, checker.calls.get());
+    }
+}
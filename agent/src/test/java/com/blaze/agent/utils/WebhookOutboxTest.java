@@ -0,0 +1,131 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.agent.utils;
+
+import com.blaze.notifications.WebhookSender;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WebhookOutboxTest {
+
+    private static class FakeSender extends WebhookSender {
+        private final LinkedList<Integer> codes = new LinkedList<>();
+        private final List<String> payloads = new ArrayList<>();
+
+        @Override
+        public int send(String url, String payload) throws IOException {
+            if (url.contains("broken")) {
+                throw new IllegalArgumentException("unexpected url " + url);
+            }
+            payloads.add(payload);
+            Integer code = codes.poll();
+            if (code == null) {
+                throw new SocketTimeoutException("timeout");
+            }
+            return code;
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        File directory = Files.createTempDirectory("outbox").toFile();
+        try {
+            FakeSender sender = new FakeSender();
+            WebhookOutbox outbox = new WebhookOutbox(directory, sender, 3, 0);
+            outbox.shutdown();
+
+            String payload = "{\"text\":\"null\",\"value\":\"a=b\\nc\"}";
+            outbox.enqueue("http://hooks/1", payload);
+            assertEquals(1, outbox.size());
+
+            sender.codes.add(500);
+            outbox.deliverDue();
+            assertEquals(1, outbox.size());
+
+            WebhookOutbox restarted = new WebhookOutbox(directory, sender, 3, 0);
+            restarted.shutdown();
+            sender.codes.add(200);
+            restarted.deliverDue();
+            assertEquals(0, restarted.size());
+            assertEquals(2, sender.payloads.size());
+            assertEquals(payload, sender.payloads.get(1));
+
+            restarted.enqueue("http://hooks/2", "{}");
+            sender.codes.add(404);
+            restarted.deliverDue();
+            assertEquals(0, restarted.size());
+
+            restarted.enqueue("http://hooks/3", "{}");
+            restarted.deliverDue();
+            restarted.deliverDue();
+            assertEquals(1, restarted.size());
+            restarted.deliverDue();
+            assertEquals(0, restarted.size());
+            assertEquals(6, sender.payloads.size());
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    @Test
+    public void testBrokenNotifications() throws Exception {
+        File directory = Files.createTempDirectory("outbox").toFile();
+        try {
+            FakeSender sender = new FakeSender();
+            WebhookOutbox outbox = new WebhookOutbox(new File(directory, "outbox"), sender, 3, 0);
+            outbox.shutdown();
+
+            try {
+                outbox.enqueue("not a url", "{}");
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals(0, outbox.size());
+            }
+
+            outbox.enqueue("http://broken/1", "{}");
+            outbox.deliverDue();
+            assertEquals(0, outbox.size());
+
+            FileUtils.writeStringToFile(new File(directory, "outbox/1-1.webhook"), "url=http://hooks/1\nattempts=x\n", "UTF-8");
+            outbox.deliverDue();
+            assertEquals(0, outbox.size());
+            assertTrue(sender.payloads.isEmpty());
+
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                outbox.enqueue("http://hooks/2", "{}");
+                File[] files = new File(directory, "outbox").listFiles();
+                assertEquals(1, files.length);
+                assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(files[0].toPath())));
+                assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(files[0].getParentFile().toPath())));
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.benchmarks;
+
+import com.blaze.runner.utils.BzmReport;
+import com.blaze.utils.ReportManifest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of `BlazeMeterReports` artifact for BlazeMeter report tab: JSON manifest and legacy line-pair format
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportParsingBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int reports;
+
+    @Param({"manifest", "legacy"})
+    public String format;
+
+    private byte[] artifact;
+
+    @Setup
+    public void setUp() {
+        if ("manifest".equals(format)) {
+            ReportManifest manifest = new ReportManifest();
+            for (int i = 0; i < reports; i++) {
+                manifest.put(new ReportManifest.Entry("Test " + i, String.valueOf(i), String.valueOf(1000 + i),
+                        "https://a.blazemeter.com/app/?public-token=token" + i + "#/masters/" + i + "/summary",
+                        1500000000000L + i, 1500000600000L + i, "SUCCESS"));
+            }
+            artifact = manifest.toJSONString().getBytes(StandardCharsets.UTF_8);
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < reports; i++) {
+            builder.append("BlazeMeter report: Test ").append(i).append("\r\n");
+            builder.append("https://a.blazemeter.com/app/?public-token=token").append(i).append("#/masters/").append(i).append("/summary\r\n");
+        }
+        artifact = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BzmReport parse() throws IOException {
+        return BzmReport.parse(new ByteArrayInputStream(artifact));
+    }
+}
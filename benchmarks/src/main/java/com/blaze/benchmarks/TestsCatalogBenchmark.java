@@ -0,0 +1,145 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.benchmarks;
+
+import com.blaze.runner.utils.BzmServerUtils;
+import com.blaze.runner.utils.TestsLoader;
+import com.blaze.runner.utils.TestsSearchIndex;
+import com.blazemeter.api.explorer.Account;
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import com.blazemeter.api.explorer.test.MultiTest;
+import com.blazemeter.api.explorer.test.SingleTest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building of tests catalog for build step editor on synthetic accounts (no network calls):
+ * loading and sorting with {@link TestsLoader} as `TestsUtils.loadTests` does, and building of search index.
+ * Search is measured in sample time mode, so JMH reports its latency percentiles for short, broad and narrow queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestsCatalogBenchmark {
+
+    private static final int TESTS_PER_WORKSPACE = 1000;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int tests;
+
+    private final BzmServerUtils utils = new BzmServerUtils();
+    private List<Account> accounts;
+    private List<AbstractTest> unsorted;
+    private Map<Workspace, List<AbstractTest>> catalog;
+    private TestsSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Workspace> workspaces = new ArrayList<>();
+        unsorted = new ArrayList<>(tests);
+        for (int created = 0, w = 0; created < tests; w++) {
+            int count = Math.min(TESTS_PER_WORKSPACE, tests - created);
+            final List<SingleTest> singleTests = new ArrayList<>();
+            final List<MultiTest> multiTests = new ArrayList<>();
+            for (int i = 0; i < count; i++, created++) {
+                String name = "Test " + Integer.toString(random.nextInt(1000000), 36) + " scenario " + created;
+                if (i % 10 == 0) {
+                    multiTests.add(new MultiTest(utils, String.valueOf(created), name, "multi"));
+                } else {
+                    singleTests.add(new SingleTest(utils, String.valueOf(created), name, "http"));
+                }
+            }
+            unsorted.addAll(singleTests);
+            unsorted.addAll(multiTests);
+            workspaces.add(new Workspace(utils, String.valueOf(w), "Workspace " + w) {
+                @Override
+                public List<SingleTest> getSingleTests() throws IOException {
+                    return singleTests;
+                }
+
+                @Override
+                public List<MultiTest> getMultiTests() throws IOException {
+                    return multiTests;
+                }
+            });
+        }
+
+        accounts = new ArrayList<>();
+        for (int i = 0; i < workspaces.size(); i += 10) {
+            final List<Workspace> accountWorkspaces = workspaces.subList(i, Math.min(i + 10, workspaces.size()));
+            accounts.add(new Account(utils, String.valueOf(i), "Account " + i) {
+                @Override
+                public List<Workspace> getWorkspaces() throws IOException {
+                    return accountWorkspaces;
+                }
+            });
+        }
+
+        catalog = loadCatalog();
+        index = TestsSearchIndex.EMPTY.update(catalog);
+    }
+
+    @Benchmark
+    public Map<Workspace, List<AbstractTest>> loadCatalog() {
+        return new TestsLoader(utils.getLogger()).load(accounts);
+    }
+
+    @Benchmark
+    public List<AbstractTest> sortTests() {
+        List<AbstractTest> copy = new ArrayList<>(unsorted);
+        Collections.sort(copy, TestsLoader.TESTS_COMPARATOR);
+        return copy;
+    }
+
+    @Benchmark
+    public TestsSearchIndex buildSearchIndex() {
+        return TestsSearchIndex.EMPTY.update(catalog);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SearchQuery {
+        @Param({"te", "scen", "scenario 42", "9999"})
+        public String query;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<TestsSearchIndex.Hit> search(SearchQuery query) {
+        return index.search(query.query, 20);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.benchmarks;
+
+import com.blaze.plugins.PluginInfo;
+import com.blaze.utils.TCBzmUtils;
+import com.blaze.utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small helpers which are called for every request or every rendered test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    private PluginInfo pluginInfo;
+    private ExposedUtils utils;
+
+    /**
+     * Makes protected `modifyRequestUrl` reachable from benchmark
+     */
+    private static class ExposedUtils extends TCBzmUtils {
+        ExposedUtils() {
+            super("id", "secret", "https://a.blazemeter.com", null, null);
+        }
+
+        String modify(String url) {
+            return modifyRequestUrl(url);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        utils = new ExposedUtils();
+        pluginInfo = new PluginInfo(utils);
+    }
+
+    @Benchmark
+    public int versionComparator() {
+        return pluginInfo.versionComparator.compare("4.10.2", "4.10.12");
+    }
+
+    @Benchmark
+    public int versionComparatorNonNumeric() {
+        return pluginInfo.versionComparator.compare("4.10-SNAPSHOT", "4.10.1");
+    }
+
+    @Benchmark
+    public String getTestId() {
+        return Utils.getTestId("1234567.http");
+    }
+
+    @Benchmark
+    public String getTestIdWithoutType() {
+        return Utils.getTestId("1234567");
+    }
+
+    @Benchmark
+    public String version() {
+        return Utils.version();
+    }
+
+    @Benchmark
+    public String modifyRequestUrl() {
+        return utils.modify("https://a.blazemeter.com/api/v4/masters/123/status");
+    }
+
+    @Benchmark
+    public String modifyRequestUrlWithQuery() {
+        return utils.modify("https://a.blazemeter.com/api/v4/tests?workspaceId=123&limit=1000");
+    }
+}
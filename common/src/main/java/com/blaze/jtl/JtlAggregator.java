@@ -0,0 +1,312 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.jtl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass aggregator of JTL (CSV) files: overall and per-label count, throughput, error rate and percentiles.
+ * Rows are parsed from a fixed buffer and only `timeStamp`, `elapsed`, `label` and `success` columns are materialized,
+ * so memory depends on the number of labels, not on the number of samples.
+ * Labels after the first `bzm.jtl.maxLabels` (by default it is 1000) are aggregated as {@link #OTHER_LABEL}.
+ */
+public class JtlAggregator {
+
+    public static final String OTHER_LABEL = "(other)";
+
+    private static final String[] DEFAULT_HEADER = {"timeStamp", "elapsed", "label", "responseCode", "responseMessage",
+            "threadName", "dataType", "success"};
+
+    private static final int TIMESTAMP = 0;
+    private static final int ELAPSED = 1;
+    private static final int LABEL = 2;
+    private static final int SUCCESS = 3;
+    private static final String[] COLUMNS = {"timeStamp", "elapsed", "label", "success"};
+
+    private final int maxLabels;
+    private final SampleStats overall = new SampleStats();
+    private final Map<String, SampleStats> labels = new LinkedHashMap<>();
+    private long malformed;
+
+    private final char[] buffer = new char[64 * 1024];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+
+    public JtlAggregator() {
+        this(Integer.getInteger("bzm.jtl.maxLabels", 1000));
+    }
+
+    public JtlAggregator(int maxLabels) {
+        this.maxLabels = maxLabels;
+    }
+
+    public void aggregate(File file) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            aggregate(reader);
+        }
+    }
+
+    /**
+     * Add all samples of the reader. First row is used as header, if it contains `elapsed` column (in any case).
+     */
+    public void aggregate(Reader reader) throws IOException {
+        position = 0;
+        limit = 0;
+
+        List<String> firstRow = new ArrayList<>();
+        if (!readRecord(reader, null, firstRow)) {
+            return;
+        }
+        boolean hasHeader = indexOf(firstRow.toArray(new String[firstRow.size()]), COLUMNS[ELAPSED]) >= 0;
+        int[] indexes = findColumns(hasHeader ? firstRow.toArray(new String[firstRow.size()]) : DEFAULT_HEADER);
+
+        int width = 0;
+        for (int index : indexes) {
+            width = Math.max(width, index + 1);
+        }
+        String[] wanted = new String[width];
+        if (!hasHeader) {
+            for (int i = 0; i < firstRow.size() && i < width; i++) {
+                wanted[i] = firstRow.get(i);
+            }
+            addSample(wanted, indexes);
+        }
+
+        while (readRecord(reader, wanted, null)) {
+            addSample(wanted, indexes);
+        }
+    }
+
+    private static int[] findColumns(String[] header) throws IOException {
+        int[] indexes = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            indexes[i] = indexOf(header, COLUMNS[i]);
+            if (indexes[i] < 0) {
+                throw new IOException("JTL has no column " + COLUMNS[i]);
+            }
+        }
+        return indexes;
+    }
+
+    private static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (column.equalsIgnoreCase(header[i].trim())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void addSample(String[] row, int[] indexes) {
+        String timestamp = row[indexes[TIMESTAMP]];
+        String elapsed = row[indexes[ELAPSED]];
+        String label = row[indexes[LABEL]];
+        String success = row[indexes[SUCCESS]];
+        if (timestamp == null || elapsed == null || label == null || success == null) {
+            malformed++;
+            return;
+        }
+
+        long time;
+        long duration;
+        try {
+            time = Long.parseLong(timestamp.trim());
+            duration = Long.parseLong(elapsed.trim());
+        } catch (NumberFormatException e) {
+            malformed++;
+            return;
+        }
+        boolean isSuccess = "true".equalsIgnoreCase(success.trim());
+
+        overall.add(time, duration, isSuccess);
+        getLabelStats(label).add(time, duration, isSuccess);
+    }
+
+    private SampleStats getLabelStats(String label) {
+        SampleStats stats = labels.get(label);
+        if (stats == null) {
+            if (labels.size() >= maxLabels) {
+                label = OTHER_LABEL;
+                stats = labels.get(label);
+            }
+            if (stats == null) {
+                stats = new SampleStats();
+                labels.put(label, stats);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Read one CSV record (RFC 4180 quoting).
+     *
+     * @param wanted - values of the first wanted.length columns are stored here, null if all values go to `all`
+     * @param all    - receives values of all columns
+     * @return false if there is no more records
+     */
+    private boolean readRecord(Reader reader, String[] wanted, List<String> all) throws IOException {
+        if (wanted != null) {
+            for (int i = 0; i < wanted.length; i++) {
+                wanted[i] = null;
+            }
+        }
+        field.setLength(0);
+        int column = 0;
+        boolean inQuotes = false;
+        boolean hasData = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    if (hasData) {
+                        endField(column, wanted, all);
+                    }
+                    return hasData;
+                }
+            }
+            char c = buffer[position++];
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek(reader) == '"') {
+                        position++;
+                        append(c, column, wanted);
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    append(c, column, wanted);
+                }
+                continue;
+            }
+
+            if (c == ',') {
+                endField(column++, wanted, all);
+                hasData = true;
+            } else if (c == '\n') {
+                if (hasData || field.length() > 0) {
+                    endField(column, wanted, all);
+                    return true;
+                }
+            } else if (c == '\r') {
+                continue;
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+                hasData = true;
+            } else {
+                append(c, column, wanted);
+                hasData = true;
+            }
+        }
+    }
+
+    private int peek(Reader reader) throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private void append(char c, int column, String[] wanted) {
+        if (wanted == null || column < wanted.length) {
+            field.append(c);
+        }
+    }
+
+    private void endField(int column, String[] wanted, List<String> all) {
+        if (all != null) {
+            all.add(field.toString());
+        } else if (column < wanted.length) {
+            wanted[column] = field.toString();
+        }
+        field.setLength(0);
+    }
+
+    public SampleStats getOverall() {
+        return overall;
+    }
+
+    /**
+     * @return stats of labels in order of their first samples
+     */
+    public Map<String, SampleStats> getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return number of rows that were skipped because of missing or invalid values
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return build statistic values: overall ones with the prefix and ones of `maxLabels` labels
+     * with the most samples with `prefix + "label." + key + "."` prefix.
+     * Key is the label with unsupported characters replaced, labels with the same key get `_2`, `_3`... suffixes
+     */
+    public Map<String, String> toStatistics(String prefix, int maxLabels) {
+        Map<String, String> values = new LinkedHashMap<>(overall.toStatistics(prefix));
+
+        List<Map.Entry<String, SampleStats>> entries = new ArrayList<>(labels.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, SampleStats>>() {
+            @Override
+            public int compare(Map.Entry<String, SampleStats> o1, Map.Entry<String, SampleStats> o2) {
+                return Long.compare(o2.getValue().getCount(), o1.getValue().getCount());
+            }
+        });
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < entries.size() && i < maxLabels; i++) {
+            Map.Entry<String, SampleStats> entry = entries.get(i);
+            String key = toKey(entry.getKey());
+            for (int n = 2; !keys.add(key); n++) {
+                key = toKey(entry.getKey()) + "_" + n;
+            }
+            values.putAll(entry.getValue().toStatistics(prefix + "label." + key + "."));
+        }
+        return values;
+    }
+
+    static String toKey(String label) {
+        StringBuilder key = new StringBuilder(label.length());
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            key.append(Character.isLetterOrDigit(c) || c == '-' || c == '_' ? c : '_');
+        }
+        return key.toString();
+    }
+}
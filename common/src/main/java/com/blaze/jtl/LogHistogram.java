@@ -0,0 +1,93 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.jtl;
+
+/**
+ * Histogram of non-negative values (milliseconds) with log-linear buckets in one primitive array.
+ * Values below 128 are counted exactly, bigger values - in 64 sub-buckets per power of two,
+ * so relative error of percentiles is below 1.6%. Values above {@link #MAX_VALUE} are counted as MAX_VALUE.
+ * Memory does not depend on the number of recorded values (13 KB per histogram).
+ */
+public class LogHistogram {
+
+    public static final long MAX_VALUE = Integer.MAX_VALUE;
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+
+    private final long[] counts = new long[indexOf(MAX_VALUE) + 1];
+    private long count;
+
+    public void record(long value) {
+        counts[indexOf(Math.max(0, Math.min(value, MAX_VALUE)))]++;
+        count++;
+    }
+
+    public void add(LogHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile - from 0 to 100
+     * @return value of the percentile (middle of its bucket) or NaN if histogram is empty
+     */
+    public double getPercentile(double percentile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return middleOf(i);
+            }
+        }
+        return middleOf(counts.length - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >> shift) - SUB_BUCKETS);
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long mantissa = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << shift;
+    }
+
+    private static double middleOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        return lowerBoundOf(index) + ((1L << shift) - 1) / 2.0;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.jtl;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Aggregated samples of one label (or of all labels) of JTL file
+ */
+public class SampleStats {
+
+    private final LogHistogram histogram = new LogHistogram();
+    private long count;
+    private long errors;
+    private long sumElapsed;
+    private long maxElapsed;
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public void add(long timestamp, long elapsed, boolean success) {
+        count++;
+        if (!success) {
+            errors++;
+        }
+        sumElapsed += elapsed;
+        maxElapsed = Math.max(maxElapsed, elapsed);
+        firstTimestamp = Math.min(firstTimestamp, timestamp);
+        lastTimestamp = Math.max(lastTimestamp, timestamp + elapsed);
+        histogram.record(elapsed);
+    }
+
+    public void add(SampleStats other) {
+        count += other.count;
+        errors += other.errors;
+        sumElapsed += other.sumElapsed;
+        maxElapsed = Math.max(maxElapsed, other.maxElapsed);
+        firstTimestamp = Math.min(firstTimestamp, other.firstTimestamp);
+        lastTimestamp = Math.max(lastTimestamp, other.lastTimestamp);
+        histogram.add(other.histogram);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return errors in percents or NaN if there are no samples
+     */
+    public double getErrorRate() {
+        return count == 0 ? Double.NaN : errors * 100.0 / count;
+    }
+
+    /**
+     * @return samples per second between the start of the first sample and the end of the last one
+     */
+    public double getThroughput() {
+        long duration = lastTimestamp - firstTimestamp;
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return duration <= 0 ? count : count * 1000.0 / duration;
+    }
+
+    public double getAverage() {
+        return count == 0 ? Double.NaN : (double) sumElapsed / count;
+    }
+
+    public long getMax() {
+        return maxElapsed;
+    }
+
+    public double getPercentile(double percentile) {
+        return histogram.getPercentile(percentile);
+    }
+
+    /**
+     * @return statistic keys (with prefix) and values
+     */
+    public Map<String, String> toStatistics(String prefix) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(prefix + "count", String.valueOf(count));
+        if (count > 0) {
+            values.put(prefix + "throughput", format("%.2f", getThroughput()));
+            values.put(prefix + "errorRate", format("%.2f", getErrorRate()));
+            values.put(prefix + "avg", format("%.0f", getAverage()));
+            values.put(prefix + "p50", format("%.0f", getPercentile(50)));
+            values.put(prefix + "p90", format("%.0f", getPercentile(90)));
+            values.put(prefix + "p95", format("%.0f", getPercentile(95)));
+            values.put(prefix + "p99", format("%.0f", getPercentile(99)));
+            values.put(prefix + "max", String.valueOf(maxElapsed));
+        }
+        return values;
+    }
+
+    private static String format(String pattern, double value) {
+        return String.format(Locale.US, pattern, value);
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Process-wide registry of plugin metrics.
+ * Metrics are identified by name and label pairs, e.g. `counter("bzm_cache_hits_total", "cache", "reports")`.
+ */
+public class Metrics {
+
+    public static final String HTTP_REQUESTS = "bzm_http_requests_total";
+    public static final String HTTP_REQUEST_DURATION = "bzm_http_request_duration_seconds";
+    public static final String HTTP_RETRIES = "bzm_http_retries_total";
+    public static final String HTTP_ERRORS = "bzm_http_errors_total";
+    public static final String CACHE_HITS = "bzm_cache_hits_total";
+    public static final String CACHE_MISSES = "bzm_cache_misses_total";
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Counter>> counters = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, Histogram>> histograms = new ConcurrentSkipListMap<>();
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param labels - label names and values in turn
+     */
+    public Counter counter(String name, String... labels) {
+        ConcurrentMap<String, Counter> series = getSeries(counters, name);
+        String key = formatLabels(labels);
+        Counter counter = series.get(key);
+        if (counter == null) {
+            Counter created = new Counter();
+            counter = series.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * @param labels - label names and values in turn
+     */
+    public Histogram histogram(String name, String... labels) {
+        ConcurrentMap<String, Histogram> series = getSeries(histograms, name);
+        String key = formatLabels(labels);
+        Histogram histogram = series.get(key);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = series.putIfAbsent(key, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Shortcut for cache statistics
+     */
+    public void recordCacheAccess(String cache, boolean hit) {
+        counter(hit ? CACHE_HITS : CACHE_MISSES, "cache", cache).increment();
+    }
+
+    private static <T> ConcurrentMap<String, T> getSeries(ConcurrentMap<String, ConcurrentMap<String, T>> metrics, String name) {
+        ConcurrentMap<String, T> series = metrics.get(name);
+        if (series == null) {
+            ConcurrentMap<String, T> created = new ConcurrentHashMap<>();
+            series = metrics.putIfAbsent(name, created);
+            if (series == null) {
+                series = created;
+            }
+        }
+        return series;
+    }
+
+    /**
+     * @return all metrics in Prometheus text exposition format (version 0.0.4)
+     */
+    public String toPrometheus() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, ConcurrentMap<String, Counter>> metric : counters.entrySet()) {
+            builder.append("# TYPE ").append(metric.getKey()).append(" counter\n");
+            for (String labels : sorted(metric.getValue())) {
+                builder.append(metric.getKey()).append(wrap(labels)).append(' ')
+                        .append(metric.getValue().get(labels).get()).append('\n');
+            }
+        }
+        for (Map.Entry<String, ConcurrentMap<String, Histogram>> metric : histograms.entrySet()) {
+            String name = metric.getKey();
+            builder.append("# TYPE ").append(name).append(" histogram\n");
+            for (String labels : sorted(metric.getValue())) {
+                Histogram histogram = metric.getValue().get(labels);
+                long[] counts = histogram.getCumulativeCounts();
+                String prefix = labels.isEmpty() ? "" : labels + ",";
+                for (int i = 0; i < counts.length; i++) {
+                    String le = (i < Histogram.BOUNDS.length) ? formatDouble(Histogram.BOUNDS[i]) : "+Inf";
+                    builder.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ")
+                            .append(counts[i]).append('\n');
+                }
+                builder.append(name).append("_sum").append(wrap(labels)).append(' ')
+                        .append(formatDouble(histogram.getSumSeconds())).append('\n');
+                builder.append(name).append("_count").append(wrap(labels)).append(' ')
+                        .append(counts[counts.length - 1]).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static List<String> sorted(Map<String, ?> series) {
+        List<String> keys = new ArrayList<>(series.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    private static String wrap(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatDouble(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return String.format(Locale.US, "%.1f", value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.metrics;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Records latency, status codes and retries of BlazeMeter API calls per endpoint.
+ * Must be the last application interceptor: retry interceptor of api-client proceeds with the same request
+ * again, so the same request seen twice in a row by one thread during one call is counted as a retry.
+ * {@link #getCallInterceptor()} must be the first application interceptor, it forgets the request when the call ends.
+ * Requests that are not API calls (e.g. downloads of reports by signed urls) share one {@link #OTHER_PATH} endpoint.
+ */
+public class MetricsInterceptor implements Interceptor {
+
+    public static final String OTHER_PATH = "/{other}";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/(\\d+|[0-9a-f]{24,})(?=/|$)");
+
+    private final Metrics metrics;
+    private final ThreadLocal<Request> lastRequest = new ThreadLocal<>();
+    private final Interceptor callInterceptor = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                lastRequest.remove();
+            }
+        }
+    };
+
+    public MetricsInterceptor(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Interceptor getCallInterceptor() {
+        return callInterceptor;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = request.method() + " " + normalizePath(request.url().encodedPath());
+
+        if (lastRequest.get() == request) {
+            metrics.counter(Metrics.HTTP_RETRIES, "endpoint", endpoint).increment();
+        }
+        lastRequest.set(request);
+
+        long start = System.nanoTime();
+        try {
+            Response response = chain.proceed(request);
+            metrics.counter(Metrics.HTTP_REQUESTS, "endpoint", endpoint, "status", String.valueOf(response.code())).increment();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            metrics.counter(Metrics.HTTP_ERRORS, "endpoint", endpoint, "error", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            metrics.histogram(Metrics.HTTP_REQUEST_DURATION, "endpoint", endpoint).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Replace ids in path, so all calls of the same API method share one time series
+     */
+    static String normalizePath(String path) {
+        if (!path.startsWith("/api/")) {
+            return OTHER_PATH;
+        }
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+}
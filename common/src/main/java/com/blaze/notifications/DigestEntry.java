@@ -0,0 +1,52 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.notifications;
+
+/**
+ * Result of one build in digest notification
+ */
+public class DigestEntry {
+
+    private final String name;
+    private final String status;
+    private final String reportUrl;
+    private final boolean failed;
+
+    public DigestEntry(String name, String status, String reportUrl, boolean failed) {
+        this.name = name;
+        this.status = status;
+        this.reportUrl = reportUrl;
+        this.failed = failed;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return report url or null if build has no BlazeMeter report
+     */
+    public String getReportUrl() {
+        return reportUrl;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.notifications;
+
+import com.blaze.utils.JsonText;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Slack and Microsoft Teams payloads of test result notifications.
+ * Test and build names are user input, so payloads are written with {@link JsonText}.
+ */
+public class WebhookMessages {
+
+    public static final String SLACK = "slack";
+    public static final String TEAMS = "teams";
+
+    private static final String TITLE = "Blazemeter Test Execution";
+    private static final String COLOR_FAILED = "#FF0000";
+    private static final String COLOR_PASSED = "#008000";
+
+    /**
+     * @param type - {@link #SLACK} or {@link #TEAMS}
+     * @return payload or null if notification type is unknown
+     */
+    public static String create(String type, String testName, String masterId, String status, String reportUrl, boolean failed) {
+        if (SLACK.equals(type)) {
+            return slack(testName, masterId, status, reportUrl, failed);
+        } else if (TEAMS.equals(type)) {
+            return teams(testName, masterId, status, reportUrl, failed);
+        }
+        return null;
+    }
+
+    public static String slack(String testName, String masterId, String status, String reportUrl, boolean failed) {
+        List<Object> fields = new ArrayList<>();
+        fields.add(slackField("Test Name", testName));
+        fields.add(slackField("Master ID", masterId));
+        fields.add(slackField("Test Status", status));
+        fields.add(slackField("View Report", reportUrl));
+
+        Map<String, Object> attachment = new LinkedHashMap<>();
+        attachment.put("title", TITLE);
+        attachment.put("pretext", TITLE);
+        attachment.put("fallback", TITLE);
+        attachment.put("color", failed ? COLOR_FAILED : COLOR_PASSED);
+        attachment.put("fields", fields);
+
+        List<Object> attachments = new ArrayList<>();
+        attachments.add(attachment);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("attachments", attachments);
+        return JsonText.write(json);
+    }
+
+    public static String teams(String testName, String masterId, String status, String reportUrl, boolean failed) {
+        List<Object> facts = new ArrayList<>();
+        facts.add(teamsFact("Test Name : ", testName));
+        facts.add(teamsFact("Master ID : ", masterId));
+        facts.add(teamsFact("Test Status : ", status));
+
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put("activityTitle", TITLE);
+        section.put("facts", facts);
+        section.put("markdown", true);
+        List<Object> sections = new ArrayList<>();
+        sections.add(section);
+
+        Map<String, Object> target = new LinkedHashMap<>();
+        target.put("os", "default");
+        target.put("uri", String.valueOf(reportUrl));
+        List<Object> targets = new ArrayList<>();
+        targets.add(target);
+        Map<String, Object> action = new LinkedHashMap<>();
+        action.put("@type", "OpenUri");
+        action.put("name", "View Report");
+        action.put("targets", targets);
+        List<Object> actions = new ArrayList<>();
+        actions.add(action);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("@type", "MessageCard");
+        json.put("@context", "http://schema.org/extensions");
+        json.put("themeColor", failed ? COLOR_FAILED : COLOR_PASSED);
+        json.put("summary", TITLE);
+        json.put("sections", sections);
+        json.put("potentialAction", actions);
+        return JsonText.write(json);
+    }
+
+    /**
+     * @param type - {@link #SLACK} or {@link #TEAMS}
+     * @return one payload with results of many builds or null if notification type is unknown
+     */
+    public static String createDigest(String type, List<DigestEntry> entries) {
+        int failed = 0;
+        for (DigestEntry entry : entries) {
+            if (entry.isFailed()) {
+                failed++;
+            }
+        }
+        String title = "BlazeMeter digest: " + entries.size() + " builds, " + failed + " failed";
+        String color = failed > 0 ? COLOR_FAILED : COLOR_PASSED;
+
+        if (SLACK.equals(type)) {
+            StringBuilder text = new StringBuilder();
+            for (DigestEntry entry : entries) {
+                text.append(entry.isFailed() ? ":x: " : ":white_check_mark: ")
+                        .append(entry.getName()).append(" - ").append(entry.getStatus());
+                if (entry.getReportUrl() != null) {
+                    text.append(" - <").append(entry.getReportUrl()).append("|report>");
+                }
+                text.append('\n');
+            }
+            Map<String, Object> attachment = new LinkedHashMap<>();
+            attachment.put("title", title);
+            attachment.put("fallback", title);
+            attachment.put("color", color);
+            attachment.put("text", text.toString());
+            List<Object> attachments = new ArrayList<>();
+            attachments.add(attachment);
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("attachments", attachments);
+            return JsonText.write(json);
+        } else if (TEAMS.equals(type)) {
+            List<Object> facts = new ArrayList<>();
+            for (DigestEntry entry : entries) {
+                String value = entry.getStatus();
+                if (entry.getReportUrl() != null) {
+                    value += " - [report](" + entry.getReportUrl() + ")";
+                }
+                facts.add(teamsFact(entry.getName(), value));
+            }
+            Map<String, Object> section = new LinkedHashMap<>();
+            section.put("activityTitle", title);
+            section.put("facts", facts);
+            section.put("markdown", true);
+            List<Object> sections = new ArrayList<>();
+            sections.add(section);
+
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("@type", "MessageCard");
+            json.put("@context", "http://schema.org/extensions");
+            json.put("themeColor", color);
+            json.put("summary", title);
+            json.put("sections", sections);
+            return JsonText.write(json);
+        }
+        return null;
+    }
+
+    private static Map<String, Object> slackField(String title, String value) {
+        Map<String, Object> field = new LinkedHashMap<>();
+        field.put("title", title);
+        field.put("value", String.valueOf(value));
+        field.put("short", true);
+        return field;
+    }
+
+    private static Map<String, Object> teamsFact(String name, String value) {
+        Map<String, Object> fact = new LinkedHashMap<>();
+        fact.put("name", name);
+        fact.put("value", String.valueOf(value));
+        return fact;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.notifications;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts webhook payloads with `bzm.webhook.connectTimeout` and `bzm.webhook.readTimeout` seconds timeouts
+ * (by default 10 and 30)
+ */
+public class WebhookSender {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+
+    public WebhookSender() {
+        this(TimeUnit.SECONDS.toMillis(Long.getLong("bzm.webhook.connectTimeout", 10)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.webhook.readTimeout", 30)));
+    }
+
+    public WebhookSender(long connectTimeout, long readTimeout) {
+        this.client = new OkHttpClient.Builder()
+                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @return response code
+     * @throws IOException if the request was not completed, e.g. on timeout
+     */
+    public int send(String url, String payload) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(JSON, payload))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    /**
+     * @return true if the url can be requested, {@link #send} throws IllegalArgumentException for other urls
+     */
+    public static boolean isValidUrl(String url) {
+        return url != null && HttpUrl.parse(url.trim()) != null;
+    }
+
+    /**
+     * @return true if the request with this response code may succeed later
+     */
+    public static boolean isRetriable(int code) {
+        return code == 408 || code == 429 || code >= 500;
+    }
+
+    public static boolean isSuccessful(int code) {
+        return code >= 200 && code < 300;
+    }
+}
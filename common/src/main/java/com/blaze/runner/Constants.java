@@ -23,6 +23,7 @@ public interface Constants {
     String BLAZEMETER_URL = "BLAZEMETER_URL";
 
     String SETTINGS_ALL_TESTS_ID = "all_tests";
+    String SETTINGS_ADDITIONAL_TESTS = "blazeMeterPlugin.additionalTests";
     String SETTINGS_ALL_WORKSPACES = "all_workspaces";
     String SETTINGS_REPORT_NAME = "blazeMeterPlugin.reportName";
     String SETTINGS_JUNIT = "blazeMeterPlugin.request.junit";
@@ -32,7 +33,11 @@ public interface Constants {
     String SETTINGS_NOTES = "blazeMeterPlugin.notes";
     String SETTING_NOTIFICATION_TYPE = "notificationType";
     String SETING_WEBHOOK_URL ="blazeMeterPlugin.webhookURL";
+    String SETTING_NOTIFICATION_MODE = "blazeMeterPlugin.notificationMode";
+    String NOTIFICATION_MODE_BUILD = "build";
+    String NOTIFICATION_MODE_DIGEST = "digest";
     String SETTINGS_JMETER_PROPERTIES = "blazeMeterPlugin.jmeter.properties";
     String BZM_PROPERTIES_FILE = "/userKeyFile.properties";
     String BZM_REPORTS_FILE = "BlazeMeterReports";
+    String BZM_SUMMARY_FILE = "BlazeMeterSummary.json";
 }
\ No newline at end of file
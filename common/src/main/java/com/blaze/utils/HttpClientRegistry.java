@@ -0,0 +1,161 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide HTTP connection resources, one set per BlazeMeter URL.
+ * Clients of all utils instances for the same URL share connection pool, dispatcher and SSL socket factory,
+ * so connections and TLS sessions are reused (OkHttp reuses a connection only for the same SSL socket factory).
+ * Use Java properties for tuning:
+ * `bzm.http.pool.maxIdle` - max idle connections per URL (by default it is 10),
+ * `bzm.http.pool.keepAlive` - keep-alive of idle connection in seconds (by default it is 300),
+ * `bzm.http.maxRequests` and `bzm.http.maxRequestsPerHost` - dispatcher limits (by default 64 and 16).
+ */
+public class HttpClientRegistry {
+
+    private static final HttpClientRegistry INSTANCE = new HttpClientRegistry(
+            Integer.getInteger("bzm.http.pool.maxIdle", 10),
+            TimeUnit.SECONDS.toMillis(Long.getLong("bzm.http.pool.keepAlive", 300)),
+            Integer.getInteger("bzm.http.maxRequests", 64),
+            Integer.getInteger("bzm.http.maxRequestsPerHost", 16));
+
+    private final int maxIdleConnections;
+    private final long keepAlive;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final ConcurrentMap<String, Resources> resources = new ConcurrentHashMap<>();
+
+    HttpClientRegistry(int maxIdleConnections, long keepAlive, int maxRequests, int maxRequestsPerHost) {
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAlive = keepAlive;
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public static HttpClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param url    - BlazeMeter URL
+     * @param client - client configured by utils (interceptors, proxy, timeouts are kept)
+     * @return client that uses shared connection resources for this URL
+     */
+    public OkHttpClient share(String url, OkHttpClient client) {
+        Resources shared = getResources(url);
+        OkHttpClient.Builder builder = client.newBuilder()
+                .connectionPool(shared.connectionPool)
+                .dispatcher(shared.dispatcher);
+        if (shared.sslSocketFactory != null) {
+            builder.sslSocketFactory(shared.sslSocketFactory, shared.trustManager);
+        }
+        return builder.build();
+    }
+
+    private Resources getResources(String url) {
+        String key = normalize(url);
+        Resources shared = resources.get(key);
+        if (shared == null) {
+            Resources created = new Resources();
+            shared = resources.putIfAbsent(key, created);
+            if (shared == null) {
+                shared = created;
+            }
+        }
+        return shared;
+    }
+
+    int size() {
+        return resources.size();
+    }
+
+    /**
+     * @return scheme, host and port of URL in lower case
+     */
+    static String normalize(String url) {
+        String value = (url == null) ? "" : url.trim().toLowerCase(Locale.ENGLISH);
+        try {
+            URI uri = new URI(value);
+            if (uri.getHost() == null) {
+                return value;
+            }
+            String scheme = uri.getScheme() == null ? "https" : uri.getScheme();
+            int port = uri.getPort();
+            if (port == -1) {
+                port = "http".equals(scheme) ? 80 : 443;
+            }
+            return scheme + "://" + uri.getHost() + ":" + port;
+        } catch (Exception e) {
+            return value;
+        }
+    }
+
+    private final class Resources {
+        private final ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAlive, TimeUnit.MILLISECONDS);
+        private final Dispatcher dispatcher = new Dispatcher();
+        private final X509TrustManager trustManager = systemDefaultTrustManager();
+        private final SSLSocketFactory sslSocketFactory = createSslSocketFactory(trustManager);
+
+        private Resources() {
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        }
+    }
+
+    private static X509TrustManager systemDefaultTrustManager() {
+        try {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init((KeyStore) null);
+            for (TrustManager trustManager : factory.getTrustManagers()) {
+                if (trustManager instanceof X509TrustManager) {
+                    return (X509TrustManager) trustManager;
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            // keep SSL socket factory of the client
+        }
+        return null;
+    }
+
+    private static SSLSocketFactory createSslSocketFactory(X509TrustManager trustManager) {
+        if (trustManager == null) {
+            return null;
+        }
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{trustManager}, null);
+            return sslContext.getSocketFactory();
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import net.sf.json.util.JSONTokener;
+import net.sf.json.util.JSONUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads JSON without json-lib value processing: `JSONObject` parses strings that look like JSON,
+ * so "null" drops the key and "[1, 2]" becomes an array, both on put and on parse.
+ * Strings always stay strings here. Values are String, Number, Boolean, null, Map with String keys and List.
+ */
+public class JsonText {
+
+    private JsonText() {
+    }
+
+    public static String write(Object value) {
+        StringBuilder json = new StringBuilder();
+        write(json, value);
+        return json.toString();
+    }
+
+    /**
+     * `JSONUtils.quote` returns strings that look like a javascript function unquoted
+     */
+    public static String quote(String value) {
+        if (!JSONUtils.isFunction(value)) {
+            return JSONUtils.quote(value);
+        }
+        return '"' + JSONUtils.quote("_" + value).substring(2);
+    }
+
+    private static void write(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof String) {
+            json.append(quote((String) value));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Map) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append(quote(String.valueOf(entry.getKey()))).append(':');
+                write(json, entry.getValue());
+            }
+            json.append('}');
+        } else if (value instanceof List) {
+            json.append('[');
+            boolean first = true;
+            for (Object item : (List<?>) value) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                write(json, item);
+            }
+            json.append(']');
+        } else {
+            throw new IllegalArgumentException("Unsupported JSON value: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * @throws net.sf.json.JSONException if the text is not JSON
+     */
+    public static Object read(String text) {
+        JSONTokener tokener = new JSONTokener(text);
+        Object value = read(tokener);
+        if (tokener.nextClean() != 0) {
+            throw tokener.syntaxError("Unexpected text after JSON value");
+        }
+        return value;
+    }
+
+    private static Object read(JSONTokener tokener) {
+        char c = tokener.nextClean();
+        if (c == '"') {
+            return tokener.nextString(c);
+        } else if (c == '{') {
+            return readObject(tokener);
+        } else if (c == '[') {
+            return readArray(tokener);
+        }
+
+        StringBuilder literal = new StringBuilder();
+        while (c > ' ' && ",:]}".indexOf(c) < 0) {
+            literal.append(c);
+            c = tokener.next();
+        }
+        if (c != 0) {
+            tokener.back();
+        }
+        String value = literal.toString();
+        if ("null".equals(value)) {
+            return null;
+        } else if ("true".equals(value) || "false".equals(value)) {
+            return Boolean.valueOf(value);
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            try {
+                return Double.valueOf(value);
+            } catch (NumberFormatException ex) {
+                throw tokener.syntaxError("Invalid value '" + value + "'");
+            }
+        }
+    }
+
+    private static Map<String, Object> readObject(JSONTokener tokener) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (tokener.nextClean() == '}') {
+            return map;
+        }
+        tokener.back();
+        while (true) {
+            if (tokener.nextClean() != '"') {
+                throw tokener.syntaxError("Expected a string key");
+            }
+            String key = tokener.nextString('"');
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected ':' after a key");
+            }
+            map.put(key, read(tokener));
+            char c = tokener.nextClean();
+            if (c == '}') {
+                return map;
+            } else if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private static List<Object> readArray(JSONTokener tokener) {
+        List<Object> list = new ArrayList<>();
+        if (tokener.nextClean() == ']') {
+            return list;
+        }
+        tokener.back();
+        while (true) {
+            list.add(read(tokener));
+            char c = tokener.nextClean();
+            if (c == ']') {
+                return list;
+            } else if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import com.blazemeter.api.logging.Logger;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Downloads JTL archives of BlazeMeter sessions straight to disk.
+ * Interrupted transfer is resumed with HTTP Range request from the size of partial file,
+ * up to `bzm.jtl.retries` times (by default it is 5) with growing delay of `bzm.jtl.retryDelay` milliseconds
+ * (by default it is 2000). Size of the file is checked against Content-Length / Content-Range of the response,
+ * CRC of every entry is checked while the archive is unzipped.
+ */
+public class JtlDownloader {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+    private static final Pattern UNSATISFIED_RANGE = Pattern.compile("bytes \\*/(\\d+)");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OkHttpClient client;
+    private final Logger logger;
+    private final int retries;
+    private final long retryDelay;
+
+    public JtlDownloader(OkHttpClient client, Logger logger) {
+        this(client, logger, Integer.getInteger("bzm.jtl.retries", 5), Long.getLong("bzm.jtl.retryDelay", 2000));
+    }
+
+    public JtlDownloader(OkHttpClient client, Logger logger, int retries, long retryDelay) {
+        this.client = client;
+        this.logger = logger;
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Download archive and unzip it into directory
+     *
+     * @return unzipped files
+     */
+    public List<File> downloadAndUnzip(String url, File archive, File targetDir) throws IOException, InterruptedException {
+        download(url, archive);
+        List<File> files = unzip(archive, targetDir);
+        if (!archive.delete()) {
+            logger.warn("Cannot delete JTL archive " + archive.getAbsolutePath());
+        }
+        return files;
+    }
+
+    /**
+     * Download url to file. Data is written to `file.part` first, so the download can be resumed after failure.
+     */
+    public File download(String url, File file) throws IOException, InterruptedException {
+        File part = new File(file.getAbsolutePath() + ".part");
+        File parent = part.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent.getAbsolutePath());
+        }
+
+        IOException lastError = null;
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            if (attempt > 0) {
+                long delay = retryDelay * attempt;
+                logger.info("Retry JTL download in " + delay + " ms from byte " + part.length() + ", attempt " + attempt);
+                Thread.sleep(delay);
+            }
+            try {
+                if (tryDownload(url, part)) {
+                    if (file.exists() && !file.delete()) {
+                        throw new IOException("Cannot replace file " + file.getAbsolutePath());
+                    }
+                    if (!part.renameTo(file)) {
+                        throw new IOException("Cannot rename " + part.getAbsolutePath() + " to " + file.getName());
+                    }
+                    return file;
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to download JTL from " + url, e);
+                lastError = e;
+            }
+        }
+        throw lastError != null ? lastError : new IOException("Failed to download JTL after " + (retries + 1) + " attempts");
+    }
+
+    /**
+     * @return true if the whole file is downloaded and its size is checked
+     */
+    private boolean tryDownload(String url, File part) throws IOException {
+        long offset = part.exists() ? part.length() : 0;
+        Request.Builder builder = new Request.Builder().url(url).get()
+                // transparent gzip of OkHttp does not work with ranges
+                .header("Accept-Encoding", "identity");
+        if (offset > 0) {
+            builder.header("Range", "bytes=" + offset + "-");
+        }
+
+        Response response = client.newCall(builder.build()).execute();
+        try {
+            int code = response.code();
+            long expectedSize;
+            boolean append;
+            if (code == 206 && offset > 0) {
+                Matcher matcher = CONTENT_RANGE.matcher(String.valueOf(response.header("Content-Range")));
+                if (!matcher.matches() || Long.parseLong(matcher.group(1)) != offset) {
+                    throw new IOException("Unexpected Content-Range: " + response.header("Content-Range"));
+                }
+                expectedSize = "*".equals(matcher.group(3)) ? -1 : Long.parseLong(matcher.group(3));
+                append = true;
+            } else if (code == 200) {
+                if (offset > 0) {
+                    logger.info("Server does not support ranges, download JTL from the beginning");
+                }
+                long length = response.body().contentLength();
+                expectedSize = length;
+                append = false;
+            } else if (code == 416 && offset > 0) {
+                Matcher matcher = UNSATISFIED_RANGE.matcher(String.valueOf(response.header("Content-Range")));
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) == offset) {
+                    return true;
+                }
+                logger.warn("Partial JTL file does not match the remote file, download it from the beginning");
+                if (!part.delete()) {
+                    throw new IOException("Cannot delete partial file " + part.getAbsolutePath());
+                }
+                return false;
+            } else {
+                throw new IOException("Unexpected response code " + code + " for JTL download");
+            }
+
+            long written = copy(response.body(), part, append);
+            long size = append ? offset + written : written;
+            if (expectedSize >= 0 && size != expectedSize) {
+                throw new IOException("Downloaded " + size + " bytes of " + expectedSize);
+            }
+            return true;
+        } finally {
+            response.close();
+        }
+    }
+
+    private long copy(ResponseBody body, File part, boolean append) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long written = 0;
+        try (InputStream in = body.byteStream(); OutputStream out = new FileOutputStream(part, append)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                written += read;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Unzip archive entry by entry, ZipInputStream checks size and CRC of every entry
+     *
+     * @return unzipped files
+     */
+    public static List<File> unzip(File archive, File targetDir) throws IOException {
+        List<File> files = new ArrayList<>();
+        String targetPath = targetDir.getCanonicalPath() + File.separator;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(archive), BUFFER_SIZE))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                File file = new File(targetDir, entry.getName());
+                if (!file.getCanonicalPath().startsWith(targetPath)) {
+                    throw new IOException("Entry is outside of the target directory: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    mkdirs(file);
+                    continue;
+                }
+                mkdirs(file.getParentFile());
+                try (OutputStream out = new FileOutputStream(file)) {
+                    int read;
+                    while ((read = zip.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IOException("JTL archive is empty: " + archive.getName());
+        }
+        return files;
+    }
+
+    private static void mkdirs(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import net.sf.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Key performance indicators of finished BlazeMeter test.
+ * Agent stores them in `BlazeMeterSummary.json` artifact, so report tab can present them without calls to BlazeMeter.
+ * Absent values are NaN.
+ */
+public class KpiSummary {
+
+    public static final int VERSION = 1;
+
+    private final double throughput;
+    private final double errorRate;
+    private final double avgLatency;
+    private final double p90;
+    private final double p95;
+    private final double p99;
+    private final double maxUsers;
+
+    public KpiSummary(double throughput, double errorRate, double avgLatency, double p90, double p95, double p99, double maxUsers) {
+        this.throughput = throughput;
+        this.errorRate = errorRate;
+        this.avgLatency = avgLatency;
+        this.p90 = p90;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * @param summary - result of `Master.getSummary()`
+     */
+    public static KpiSummary fromMasterSummary(JSONObject summary) {
+        double hits = summary.optDouble("hits", Double.NaN);
+        double failed = summary.optDouble("failed", Double.NaN);
+        double duration = summary.optDouble("duration", Double.NaN);
+
+        double throughput = summary.optDouble("hits_avg", Double.NaN);
+        if (Double.isNaN(throughput) && duration > 0) {
+            throughput = hits / duration;
+        }
+        double errorRate = hits > 0 ? failed / hits * 100 : Double.NaN;
+        double avgLatency = summary.optDouble("latencyAvg", summary.optDouble("avg", Double.NaN));
+
+        return new KpiSummary(throughput, errorRate, avgLatency,
+                summary.optDouble("tp90", Double.NaN),
+                summary.optDouble("tp95", Double.NaN),
+                summary.optDouble("tp99", Double.NaN),
+                summary.optDouble("maxUsers", Double.NaN));
+    }
+
+    public static KpiSummary fromJSON(JSONObject json) {
+        return new KpiSummary(json.optDouble("throughput", Double.NaN),
+                json.optDouble("errorRate", Double.NaN),
+                json.optDouble("avgLatency", Double.NaN),
+                json.optDouble("p90", Double.NaN),
+                json.optDouble("p95", Double.NaN),
+                json.optDouble("p99", Double.NaN),
+                json.optDouble("maxUsers", Double.NaN));
+    }
+
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("version", VERSION);
+        putIfPresent(json, "throughput", throughput);
+        putIfPresent(json, "errorRate", errorRate);
+        putIfPresent(json, "avgLatency", avgLatency);
+        putIfPresent(json, "p90", p90);
+        putIfPresent(json, "p95", p95);
+        putIfPresent(json, "p99", p99);
+        putIfPresent(json, "maxUsers", maxUsers);
+        return json;
+    }
+
+    private static void putIfPresent(JSONObject json, String key, double value) {
+        if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+            json.put(key, value);
+        }
+    }
+
+    /**
+     * @return KPI labels and formatted values in presentation order
+     */
+    public Map<String, String> toRows() {
+        Map<String, String> rows = new LinkedHashMap<>();
+        rows.put("Throughput", format(throughput, "%.2f hits/s"));
+        rows.put("Error rate", format(errorRate, "%.2f %%"));
+        rows.put("Average latency", format(avgLatency, "%.0f ms"));
+        rows.put("90% line", format(p90, "%.0f ms"));
+        rows.put("95% line", format(p95, "%.0f ms"));
+        rows.put("99% line", format(p99, "%.0f ms"));
+        rows.put("Max users", format(maxUsers, "%.0f"));
+        return rows;
+    }
+
+    private static String format(double value, String pattern) {
+        return Double.isNaN(value) ? "N/A" : String.format(Locale.US, pattern, value);
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public double getAvgLatency() {
+        return avgLatency;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getMaxUsers() {
+        return maxUsers;
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content of `BlazeMeterReports` artifact: one entry per started master, in start order.
+ * Agent rewrites the whole file on every change, so report tab never sees a partially written manifest.
+ */
+public class ReportManifest {
+
+    public static final int VERSION = 1;
+
+    private final List<Entry> entries;
+
+    public ReportManifest() {
+        this(new ArrayList<Entry>());
+    }
+
+    private ReportManifest(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Replace entry of the same master or append the new one
+     */
+    public void put(Entry entry) {
+        for (int i = 0; i < entries.size(); i++) {
+            String masterId = entries.get(i).getMasterId();
+            if (masterId != null && masterId.equals(entry.getMasterId())) {
+                entries.set(i, entry);
+                return;
+            }
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Names and urls are user input, so the manifest is written with {@link JsonText}
+     */
+    public String toJSONString() {
+        List<Object> masters = new ArrayList<>();
+        for (Entry entry : entries) {
+            masters.add(entry.toMap());
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("version", VERSION);
+        json.put("masters", masters);
+        return JsonText.write(json);
+    }
+
+    /**
+     * Entries of unknown newer versions are read as far as their fields are known
+     *
+     * @throws net.sf.json.JSONException if the content is not JSON
+     */
+    public static ReportManifest parse(String content) {
+        List<Entry> entries = new ArrayList<>();
+        Object json = JsonText.read(content);
+        Object masters = json instanceof Map ? ((Map<?, ?>) json).get("masters") : null;
+        if (masters instanceof List) {
+            for (Object master : (List<?>) masters) {
+                if (master instanceof Map) {
+                    entries.add(Entry.fromMap((Map<?, ?>) master));
+                }
+            }
+        }
+        return new ReportManifest(entries);
+    }
+
+    /**
+     * @return manifest stored in the file or empty manifest if the file does not exist or is not a manifest
+     */
+    public static ReportManifest read(File file) throws IOException {
+        if (!file.isFile()) {
+            return new ReportManifest();
+        }
+        String content = FileUtils.readFileToString(file, StandardCharsets.UTF_8).trim();
+        if (!content.startsWith("{")) {
+            return new ReportManifest();
+        }
+        return parse(content);
+    }
+
+    /**
+     * Write the manifest to a temporary file and move it over the target file
+     */
+    public void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(dir);
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            Files.write(tmpFile.toPath(), toJSONString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tmpFile.exists()) {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Put the entry to the manifest stored in the file. Updates from the same JVM are serialized
+     */
+    public static synchronized void update(File file, Entry entry) throws IOException {
+        ReportManifest manifest = read(file);
+        manifest.put(entry);
+        manifest.write(file);
+    }
+
+    /**
+     * Report of one master. End time is 0 and result is null while the test is running
+     */
+    public static class Entry {
+        private final String name;
+        private final String masterId;
+        private final String testId;
+        private final String reportUrl;
+        private final long startedAt;
+        private final long endedAt;
+        private final String result;
+
+        public Entry(String name, String masterId, String testId, String reportUrl, long startedAt, long endedAt, String result) {
+            this.name = name;
+            this.masterId = masterId;
+            this.testId = testId;
+            this.reportUrl = reportUrl;
+            this.startedAt = startedAt;
+            this.endedAt = endedAt;
+            this.result = result;
+        }
+
+        public Entry withResult(String result, long endedAt) {
+            return new Entry(name, masterId, testId, reportUrl, startedAt, endedAt, result);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("name", name);
+            json.put("masterId", masterId);
+            json.put("testId", testId);
+            json.put("reportUrl", reportUrl);
+            json.put("startedAt", startedAt);
+            json.put("endedAt", endedAt);
+            json.put("result", result);
+            return json;
+        }
+
+        static Entry fromMap(Map<?, ?> json) {
+            return new Entry(optString(json, "name"), optString(json, "masterId"), optString(json, "testId"),
+                    optString(json, "reportUrl"), optLong(json, "startedAt"), optLong(json, "endedAt"),
+                    optString(json, "result"));
+        }
+
+        private static String optString(Map<?, ?> json, String key) {
+            Object value = json.get(key);
+            return value == null ? null : String.valueOf(value);
+        }
+
+        private static long optLong(Map<?, ?> json, String key) {
+            Object value = json.get(key);
+            return value instanceof Number ? ((Number) value).longValue() : 0;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getMasterId() {
+            return masterId;
+        }
+
+        public String getTestId() {
+            return testId;
+        }
+
+        public String getReportUrl() {
+            return reportUrl;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getEndedAt() {
+            return endedAt;
+        }
+
+        public String getResult() {
+            return result;
+        }
+
+        public boolean isFinished() {
+            return result != null;
+        }
+    }
+}
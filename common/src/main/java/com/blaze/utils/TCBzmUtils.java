@@ -14,11 +14,16 @@
 
 package com.blaze.utils;
 
+import com.blaze.metrics.Metrics;
+import com.blaze.metrics.MetricsInterceptor;
 import com.blazemeter.api.logging.Logger;
 import com.blazemeter.api.logging.UserNotifier;
 import com.blazemeter.api.utils.BlazeMeterUtils;
 import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.TimeUnit;
 
 public class TCBzmUtils extends BlazeMeterUtils {
 
@@ -29,8 +34,32 @@ public class TCBzmUtils extends BlazeMeterUtils {
 
     public static String TEAM_CITY_PLUGIN_INFO = APP_KEY + CLIENT_IDENTIFICATION;
 
+    private static final MetricsInterceptor METRICS_INTERCEPTOR = new MetricsInterceptor(Metrics.getInstance());
+
     public TCBzmUtils(String apiKeyId, String apiKeySecret, String address, UserNotifier notifier, Logger logger) {
         super(apiKeyId, apiKeySecret, address, "data_address", notifier, logger);
+        OkHttpClient.Builder builder = httpClient.newBuilder();
+        builder.interceptors().add(0, METRICS_INTERCEPTOR.getCallInterceptor());
+        builder.addInterceptor(METRICS_INTERCEPTOR);
+        this.httpClient = HttpClientRegistry.getInstance().share(address, builder.build());
+    }
+
+    /**
+     * Limit connect, write and read timeouts of API calls, so a call ends in about the given time
+     */
+    public void setTimeout(long timeout) {
+        this.httpClient = httpClient.newBuilder()
+                .connectTimeout(timeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(timeout, TimeUnit.MILLISECONDS)
+                .readTimeout(timeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @return client with proxy settings of the plugin, for requests that are not BlazeMeter API calls
+     */
+    public OkHttpClient getHttpClient() {
+        return httpClient;
     }
 
     @Override
@@ -15,7 +15,11 @@
 package com.blaze.utils;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 public class Utils {
 
@@ -37,4 +41,42 @@ public class Utils {
             return testId;
         }
     }
+
+    /**
+     * @param mainTest        - test selected in build step
+     * @param additionalTests - tests separated by commas, semicolons or whitespaces
+     * @return tests of build step without duplicates, main test is the first one
+     */
+    public static List<String> getTestIds(String mainTest, String additionalTests) {
+        List<String> tests = new ArrayList<>();
+        Set<String> ids = new LinkedHashSet<>();
+        StringBuilder all = new StringBuilder();
+        if (mainTest != null) {
+            all.append(mainTest);
+        }
+        if (additionalTests != null) {
+            all.append(' ').append(additionalTests);
+        }
+        for (String test : all.toString().split("[\\s,;]+")) {
+            if (!test.isEmpty() && ids.add(getTestId(test))) {
+                tests.add(test);
+            }
+        }
+        return tests;
+    }
+
+    /**
+     * @param test - test id in format 'id.type' or just 'id'
+     * @return true if id of the test is a number
+     */
+    public static boolean isValidTestId(String test) {
+        return test != null && getTestId(test).matches("\\d+");
+    }
+
+    /**
+     * @return true if the value contains TeamCity parameter reference like %param%, it is resolved on agent only
+     */
+    public static boolean containsReference(String value) {
+        return value != null && value.matches("(?s).*%[^%\\s]+%.*");
+    }
 }
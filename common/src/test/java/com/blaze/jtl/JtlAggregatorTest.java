@@ -0,0 +1,102 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.jtl;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JtlAggregatorTest {
+
+    @Test
+    public void testAggregate() throws Exception {
+        StringBuilder jtl = new StringBuilder("timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success\r\n");
+        for (int i = 1; i <= 1000; i++) {
+            jtl.append(1000 + i * 10).append(',').append(i)
+                    .append(",\"home, page ").append(i % 2).append("\",200,\"said \"\"OK\"\"\",thread,text,")
+                    .append(i % 10 == 0 ? "false" : "true").append("\r\n");
+        }
+
+        JtlAggregator aggregator = new JtlAggregator();
+        aggregator.aggregate(new StringReader(jtl.toString()));
+
+        SampleStats overall = aggregator.getOverall();
+        assertEquals(1000, overall.getCount());
+        assertEquals(100, overall.getErrors());
+        assertEquals(10.0, overall.getErrorRate(), 0.001);
+        assertEquals(500.5, overall.getAverage(), 0.001);
+        assertEquals(1000, overall.getMax());
+        assertEquals(1000 * 1000.0 / (12000 - 1010), overall.getThroughput(), 0.001);
+        assertEquals(500, overall.getPercentile(50), 500 * 0.02);
+        assertEquals(900, overall.getPercentile(90), 900 * 0.02);
+        assertEquals(990, overall.getPercentile(99), 990 * 0.02);
+        assertEquals(0, aggregator.getMalformed());
+
+        assertEquals(2, aggregator.getLabels().size());
+        assertEquals(500, aggregator.getLabels().get("home, page 1").getCount());
+        assertEquals(0, aggregator.getLabels().get("home, page 1").getErrors());
+
+        Map<String, String> statistics = aggregator.toStatistics("BlazeMeter.jtl.", 1);
+        assertEquals("1000", statistics.get("BlazeMeter.jtl.count"));
+        assertEquals("10.00", statistics.get("BlazeMeter.jtl.errorRate"));
+        assertEquals(18, statistics.size());
+        assertTrue(statistics.containsKey("BlazeMeter.jtl.label.home__page_1.p95")
+                || statistics.containsKey("BlazeMeter.jtl.label.home__page_0.p95"));
+    }
+
+    @Test
+    public void testNoHeaderAndLabelsLimit() throws Exception {
+        String jtl = "1000,5,a,200,OK,t,text,true\n"
+                + "\n"
+                + "2000,7,b,500,Error,t,text,false\n"
+                + "3000,bad,c,200,OK,t,text,true\n"
+                + "4000,9,d,200,OK,t,text,true";
+
+        JtlAggregator aggregator = new JtlAggregator(2);
+        aggregator.aggregate(new StringReader(jtl));
+
+        assertEquals(3, aggregator.getOverall().getCount());
+        assertEquals(1, aggregator.getOverall().getErrors());
+        assertEquals(1, aggregator.getMalformed());
+        assertEquals(3, aggregator.getLabels().size());
+        assertEquals(1, aggregator.getLabels().get(JtlAggregator.OTHER_LABEL).getCount());
+        assertFalse(aggregator.getLabels().containsKey("d"));
+    }
+
+    @Test
+    public void testHeaderCaseAndLabelKeys() throws Exception {
+        String jtl = "TimeStamp,Elapsed,Label,Success\n"
+                + "1000,5,a b,true\n"
+                + "2000,7,a b,true\n"
+                + "3000,9,a_b,false\n"
+                + "4000,9,a?b,true\n";
+
+        JtlAggregator aggregator = new JtlAggregator();
+        aggregator.aggregate(new StringReader(jtl));
+
+        assertEquals(4, aggregator.getOverall().getCount());
+        assertEquals(0, aggregator.getMalformed());
+
+        Map<String, String> statistics = aggregator.toStatistics("jtl.", 10);
+        assertEquals("2", statistics.get("jtl.label.a_b.count"));
+        assertEquals("1", statistics.get("jtl.label.a_b_2.count"));
+        assertEquals("1", statistics.get("jtl.label.a_b_3.count"));
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.jtl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogHistogramTest {
+
+    @Test
+    public void testBuckets() throws Exception {
+        int previous = -1;
+        for (long value = 0; value < 100000; value++) {
+            int index = LogHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(LogHistogram.lowerBoundOf(index) <= value);
+            previous = index;
+        }
+        assertEquals(128, LogHistogram.lowerBoundOf(LogHistogram.indexOf(129)));
+        assertEquals(1663, LogHistogram.indexOf(LogHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LogHistogram histogram = new LogHistogram();
+        assertTrue(Double.isNaN(histogram.getPercentile(50)));
+
+        for (long value = 1; value <= 1000000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(1000002, histogram.getCount());
+        assertEquals(500000, histogram.getPercentile(50), 500000 * 0.016);
+        assertEquals(990000, histogram.getPercentile(99), 990000 * 0.016);
+        assertEquals(0, histogram.getPercentile(0), 0);
+        assertEquals(LogHistogram.MAX_VALUE, histogram.getPercentile(100), LogHistogram.MAX_VALUE * 0.016);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.metrics;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void testCounters() throws Exception {
+        Metrics metrics = new Metrics();
+        metrics.counter("requests", "endpoint", "GET /a", "status", "200").increment();
+        metrics.counter("requests", "endpoint", "GET /a", "status", "200").add(2);
+        metrics.recordCacheAccess("reports", true);
+
+        assertSame(metrics.counter("requests", "endpoint", "GET /a", "status", "200"),
+                metrics.counter("requests", "endpoint", "GET /a", "status", "200"));
+        assertEquals(3, metrics.counter("requests", "endpoint", "GET /a", "status", "200").get());
+
+        String text = metrics.toPrometheus();
+        assertTrue(text, text.contains("# TYPE requests counter\nrequests{endpoint=\"GET /a\",status=\"200\"} 3\n"));
+        assertTrue(text, text.contains("bzm_cache_hits_total{cache=\"reports\"} 1\n"));
+    }
+
+    @Test
+    public void testHistogram() throws Exception {
+        Metrics metrics = new Metrics();
+        Histogram histogram = metrics.histogram("latency", "endpoint", "GET /a");
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(70));
+        histogram.record(TimeUnit.SECONDS.toNanos(120));
+
+        assertEquals(3, histogram.getCount());
+        long[] counts = histogram.getCumulativeCounts();
+        assertEquals(1, counts[0]);
+        assertEquals(2, counts[4]);
+        assertEquals(2, counts[counts.length - 2]);
+        assertEquals(3, counts[counts.length - 1]);
+
+        String text = metrics.toPrometheus();
+        assertTrue(text, text.contains("latency_bucket{endpoint=\"GET /a\",le=\"0.005\"} 1\n"));
+        assertTrue(text, text.contains("latency_bucket{endpoint=\"GET /a\",le=\"1.0\"} 2\n"));
+        assertTrue(text, text.contains("latency_bucket{endpoint=\"GET /a\",le=\"+Inf\"} 3\n"));
+        assertTrue(text, text.contains("latency_sum{endpoint=\"GET /a\"} 120.073\n"));
+        assertTrue(text, text.contains("latency_count{endpoint=\"GET /a\"} 3\n"));
+    }
+
+    @Test
+    public void testLabels() throws Exception {
+        assertEquals("", Metrics.formatLabels());
+        assertEquals("a=\"x\\\"y\"", Metrics.formatLabels("a", "x\"y"));
+        assertArrayEquals(new long[]{0, 0}, new long[]{new Counter().get(), new Histogram().getCount()});
+    }
+
+    @Test
+    public void testNormalizePath() throws Exception {
+        assertEquals("/api/v4/masters/{id}/status", MetricsInterceptor.normalizePath("/api/v4/masters/12345/status"));
+        assertEquals("/api/v4/workspaces/{id}", MetricsInterceptor.normalizePath("/api/v4/workspaces/5a1b2c3d4e5f6a7b8c9d0e1f"));
+        assertEquals("/api/v4/user", MetricsInterceptor.normalizePath("/api/v4/user"));
+        assertEquals(MetricsInterceptor.OTHER_PATH, MetricsInterceptor.normalizePath("/bucket/jtls/1/results.zip"));
+    }
+
+    @Test
+    public void testRetries() throws Exception {
+        final Metrics metrics = new Metrics();
+        MetricsInterceptor interceptor = new MetricsInterceptor(metrics);
+        final int[] attempts = {2};
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(interceptor.getCallInterceptor())
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        Response response = chain.proceed(chain.request());
+                        for (int i = 1; i < attempts[0]; i++) {
+                            response.close();
+                            response = chain.proceed(chain.request());
+                        }
+                        return response;
+                    }
+                })
+                .addInterceptor(interceptor)
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public Response intercept(Chain chain) throws IOException {
+                        return new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(200)
+                                .body(ResponseBody.create(MediaType.parse("text/plain"), "ok")).build();
+                    }
+                })
+                .build();
+        Request request = new Request.Builder().url("https://a.blazemeter.com/api/v4/masters/1").build();
+
+        client.newCall(request).execute().close();
+        attempts[0] = 1;
+        client.newCall(request).execute().close();
+
+        assertEquals(1, metrics.counter(Metrics.HTTP_RETRIES, "endpoint", "GET /api/v4/masters/{id}").get());
+        assertEquals(3, metrics.counter(Metrics.HTTP_REQUESTS, "endpoint", "GET /api/v4/masters/{id}", "status", "200").get());
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.notifications;
+
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WebhookMessagesTest {
+
+    @Test
+    public void testFlow() throws Exception {
+        String testName = "Checkout \"smoke\"\n";
+
+        JSONObject slack = JSONObject.fromObject(WebhookMessages.create(WebhookMessages.SLACK, testName, "123", "SUCCESS", "http://report", false));
+        JSONObject attachment = slack.getJSONArray("attachments").getJSONObject(0);
+        assertEquals("#008000", attachment.getString("color"));
+        assertEquals(testName, attachment.getJSONArray("fields").getJSONObject(0).getString("value"));
+        assertEquals("http://report", attachment.getJSONArray("fields").getJSONObject(3).getString("value"));
+
+        JSONObject teams = JSONObject.fromObject(WebhookMessages.create(WebhookMessages.TEAMS, testName, "123", "FAILED", "http://report", true));
+        assertEquals("#FF0000", teams.getString("themeColor"));
+        assertEquals(testName, teams.getJSONArray("sections").getJSONObject(0).getJSONArray("facts").getJSONObject(0).getString("value"));
+        assertEquals("http://report", teams.getJSONArray("potentialAction").getJSONObject(0)
+                .getJSONArray("targets").getJSONObject(0).getString("uri"));
+
+        assertNull(WebhookMessages.create("email", testName, "123", "FAILED", "http://report", true));
+    }
+
+    @Test
+    public void testJsonLikeNames() throws Exception {
+        String slack = WebhookMessages.create(WebhookMessages.SLACK, "[Release]", "null", "{\"a\": 1}", "http://report", false);
+        assertTrue(slack, slack.contains("\"value\":\"[Release]\""));
+        assertTrue(slack, slack.contains("\"value\":\"null\""));
+        assertTrue(slack, slack.contains("\"value\":\"{\\\"a\\\": 1}\""));
+        JSONObject attachment = JSONObject.fromObject(slack).getJSONArray("attachments").getJSONObject(0);
+        assertEquals("[Release]", attachment.getJSONArray("fields").getJSONObject(0).getString("value"));
+
+        String teams = WebhookMessages.create(WebhookMessages.TEAMS, "[1, 2]", "123", "SUCCESS", "http://report", false);
+        assertTrue(teams, teams.contains("\"value\":\"[1, 2]\""));
+
+        String digest = WebhookMessages.createDigest(WebhookMessages.TEAMS, Arrays.asList(
+                new DigestEntry("[Release]", "SUCCESS", null, false),
+                new DigestEntry("function() {}", "FAILED", null, true)));
+        assertTrue(digest, digest.contains("\"name\":\"[Release]\""));
+        assertTrue(digest, digest.contains("\"name\":\"function() {}\""));
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import okhttp3.OkHttpClient;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class HttpClientRegistryTest {
+
+    @Test
+    public void testNormalize() throws Exception {
+        assertEquals("https://a.blazemeter.com:443", HttpClientRegistry.normalize("https://A.blazemeter.com/"));
+        assertEquals("https://a.blazemeter.com:443", HttpClientRegistry.normalize(" https://a.blazemeter.com:443/api/v4 "));
+        assertEquals("http://localhost:8080", HttpClientRegistry.normalize("http://localhost:8080"));
+        assertEquals("address", HttpClientRegistry.normalize("address"));
+        assertEquals("", HttpClientRegistry.normalize(null));
+    }
+
+    @Test
+    public void testShare() throws Exception {
+        HttpClientRegistry registry = new HttpClientRegistry(5, 60000, 10, 5);
+        OkHttpClient first = registry.share("https://a.blazemeter.com", new OkHttpClient());
+        OkHttpClient second = registry.share("https://a.blazemeter.com/api", new OkHttpClient());
+        OkHttpClient other = registry.share("https://b.blazemeter.com", new OkHttpClient());
+
+        assertEquals(2, registry.size());
+        assertSame(first.connectionPool(), second.connectionPool());
+        assertSame(first.dispatcher(), second.dispatcher());
+        assertSame(first.sslSocketFactory(), second.sslSocketFactory());
+        assertNotSame(first.connectionPool(), other.connectionPool());
+        assertEquals(5, first.dispatcher().getMaxRequestsPerHost());
+    }
+}
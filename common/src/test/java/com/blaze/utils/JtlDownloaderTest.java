@@ -0,0 +1,175 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import com.blazemeter.api.logging.Logger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JtlDownloaderTest {
+
+    private static final Logger LOGGER = new Logger() {
+        @Override
+        public void debug(String message) {
+        }
+
+        @Override
+        public void debug(String message, Throwable throwable) {
+        }
+
+        @Override
+        public void info(String message) {
+        }
+
+        @Override
+        public void info(String message, Throwable throwable) {
+        }
+
+        @Override
+        public void warn(String message) {
+        }
+
+        @Override
+        public void warn(String message, Throwable throwable) {
+        }
+
+        @Override
+        public void error(String message) {
+        }
+
+        @Override
+        public void error(String message, Throwable throwable) {
+        }
+    };
+
+    private HttpServer server;
+    private File dir;
+    private byte[] archive;
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+    private volatile boolean breakFirstResponse = true;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("jtl").toFile();
+
+        StringBuilder jtl = new StringBuilder("timeStamp,elapsed,label,success\n");
+        for (int i = 0; i < 20000; i++) {
+            jtl.append(1500000000000L + i).append(',').append(i % 500).append(",label").append(i % 7).append(",true\n");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("kpi.jtl"));
+            zip.write(jtl.toString().getBytes("UTF-8"));
+            zip.closeEntry();
+        }
+        archive = bytes.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jtl.zip", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                ranges.add(String.valueOf(range));
+                int from = range == null ? 0 : Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                if (range != null) {
+                    exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + (archive.length - 1) + "/" + archive.length);
+                }
+                exchange.sendResponseHeaders(range == null ? 200 : 206, archive.length - from);
+                OutputStream out = exchange.getResponseBody();
+                if (breakFirstResponse) {
+                    breakFirstResponse = false;
+                    out.write(archive, from, archive.length / 2);
+                    out.flush();
+                    throw new IOException("Connection dropped");
+                }
+                out.write(archive, from, archive.length - from);
+                out.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        FileUtils.deleteQuietly(dir);
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/jtl.zip";
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        JtlDownloader downloader = new JtlDownloader(new OkHttpClient(), LOGGER, 3, 10);
+        File file = downloader.download(url(), new File(dir, "session.zip"));
+
+        assertArrayEquals(archive, FileUtils.readFileToByteArray(file));
+        assertFalse(new File(dir, "session.zip.part").exists());
+        assertEquals(2, ranges.size());
+        assertEquals("null", ranges.get(0));
+        assertTrue(ranges.get(1), ranges.get(1).startsWith("bytes="));
+    }
+
+    @Test
+    public void testUnzip() throws Exception {
+        breakFirstResponse = false;
+        JtlDownloader downloader = new JtlDownloader(new OkHttpClient(), LOGGER, 0, 10);
+        List<File> files = downloader.downloadAndUnzip(url(), new File(dir, "session.zip"), new File(dir, "session"));
+
+        assertEquals(1, files.size());
+        assertEquals("kpi.jtl", files.get(0).getName());
+        assertTrue(FileUtils.readFileToString(files.get(0), "UTF-8").startsWith("timeStamp,elapsed"));
+        assertFalse(new File(dir, "session.zip").exists());
+    }
+
+    @Test
+    public void testCorruptedArchive() throws Exception {
+        File file = new File(dir, "broken.zip");
+        byte[] broken = archive.clone();
+        broken[60] ^= 0x55;
+        FileUtils.writeByteArrayToFile(file, broken);
+        try {
+            JtlDownloader.unzip(file, new File(dir, "broken"));
+            fail("Corrupted archive must not be unzipped");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KpiSummaryTest {
+
+    @Test
+    public void testFromMasterSummary() throws Exception {
+        JSONObject summary = new JSONObject();
+        summary.put("hits", 1000);
+        summary.put("failed", 25);
+        summary.put("duration", 100);
+        summary.put("avg", 120.5);
+        summary.put("tp90", 200);
+        summary.put("tp95", 250);
+        summary.put("maxUsers", 20);
+
+        KpiSummary kpi = KpiSummary.fromMasterSummary(summary);
+        assertEquals(10.0, kpi.getThroughput(), 0.001);
+        assertEquals(2.5, kpi.getErrorRate(), 0.001);
+        assertEquals(120.5, kpi.getAvgLatency(), 0.001);
+        assertEquals(200, kpi.getP90(), 0.001);
+        assertTrue(Double.isNaN(kpi.getP99()));
+
+        Map<String, String> rows = kpi.toRows();
+        assertEquals("10.00 hits/s", rows.get("Throughput"));
+        assertEquals("2.50 %", rows.get("Error rate"));
+        assertEquals("N/A", rows.get("99% line"));
+    }
+
+    @Test
+    public void testJSON() throws Exception {
+        KpiSummary kpi = new KpiSummary(15.5, 0.1, 90, 100, 110, Double.NaN, 50);
+        JSONObject json = kpi.toJSON();
+        assertEquals(KpiSummary.VERSION, json.getInt("version"));
+        assertFalse(json.has("p99"));
+
+        KpiSummary restored = KpiSummary.fromJSON(JSONObject.fromObject(json.toString()));
+        assertEquals(15.5, restored.getThroughput(), 0.001);
+        assertEquals(110, restored.getP95(), 0.001);
+        assertEquals(50, restored.getMaxUsers(), 0.001);
+        assertTrue(Double.isNaN(restored.getP99()));
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReportManifestTest {
+
+    @Test
+    public void testUpdate() throws Exception {
+        File dir = Files.createTempDirectory("bzm-manifest").toFile();
+        try {
+            File file = new File(dir, "BlazeMeter/BlazeMeterReports");
+            assertTrue(ReportManifest.read(file).getEntries().isEmpty());
+
+            ReportManifest.Entry first = new ReportManifest.Entry("Load test", "100", "10", "http://a.com/100", 1000, 0, null);
+            ReportManifest.update(file, first);
+            ReportManifest.update(file, new ReportManifest.Entry("Load test", "200", "20", "http://a.com/200", 2000, 0, null));
+            ReportManifest.update(file, first.withResult("SUCCESS", 3000));
+
+            List<ReportManifest.Entry> entries = ReportManifest.read(file).getEntries();
+            assertEquals(2, entries.size());
+            assertEquals("100", entries.get(0).getMasterId());
+            assertEquals("Load test", entries.get(0).getName());
+            assertEquals("10", entries.get(0).getTestId());
+            assertEquals("http://a.com/100", entries.get(0).getReportUrl());
+            assertEquals(1000, entries.get(0).getStartedAt());
+            assertEquals(3000, entries.get(0).getEndedAt());
+            assertEquals("SUCCESS", entries.get(0).getResult());
+            assertTrue(entries.get(0).isFinished());
+            assertEquals("200", entries.get(1).getMasterId());
+            assertNull(entries.get(1).getResult());
+            assertFalse(entries.get(1).isFinished());
+
+            assertEquals(1, file.getParentFile().list().length);
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    @Test
+    public void testLegacyFileIsReplaced() throws Exception {
+        File file = File.createTempFile("BlazeMeterReports", "");
+        try {
+            FileUtils.writeStringToFile(file, "BlazeMeter report: Test\r\nhttp://a.com\r\n", "UTF-8");
+            assertTrue(ReportManifest.read(file).getEntries().isEmpty());
+
+            ReportManifest.update(file, new ReportManifest.Entry("Test", "1", "2", "http://a.com/1", 1000, 0, null));
+            assertEquals(1, ReportManifest.read(file).getEntries().size());
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+
+    @Test
+    public void testJsonLikeNames() throws Exception {
+        File file = File.createTempFile("BlazeMeterReports", "");
+        try {
+            ReportManifest.update(file, new ReportManifest.Entry("[smoke]", "1", "2", "http://a.com/1", 1000, 2000, "[1, 2]"));
+            ReportManifest.update(file, new ReportManifest.Entry("{\"a\": 1}", "3", "4", null, 3000, 0, null));
+
+            String content = FileUtils.readFileToString(file, "UTF-8");
+            assertTrue(content, content.contains("\"name\":\"[smoke]\""));
+            assertTrue(content, content.contains("\"result\":\"[1, 2]\""));
+
+            List<ReportManifest.Entry> entries = ReportManifest.read(file).getEntries();
+            assertEquals("[smoke]", entries.get(0).getName());
+            assertEquals("[1, 2]", entries.get(0).getResult());
+            assertEquals("{\"a\": 1}", entries.get(1).getName());
+            assertNull(entries.get(1).getReportUrl());
+            assertNull(entries.get(1).getResult());
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+}
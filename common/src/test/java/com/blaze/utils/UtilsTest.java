@@ -16,6 +16,8 @@ package com.blaze.utils;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class UtilsTest {
@@ -33,4 +35,27 @@ public class UtilsTest {
         assertEquals("123456", Utils.getTestId("123456.http"));
         assertEquals("123456http", Utils.getTestId("123456http"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetTestIds() throws Exception {
+        assertEquals(Arrays.asList("1.http", "2.taurus", "3"), Utils.getTestIds("1.http", " 2.taurus,\n3; 1.http\r\n2 "));
+        assertEquals(Arrays.asList("1.http"), Utils.getTestIds("1.http", null));
+        assertEquals(Arrays.asList("2"), Utils.getTestIds(null, "2"));
+        assertTrue(Utils.getTestIds("", "").isEmpty());
+    }
+
+    @Test
+    public void testTestIdValidation() throws Exception {
+        assertTrue(Utils.isValidTestId("123.http"));
+        assertTrue(Utils.isValidTestId("123"));
+        assertFalse(Utils.isValidTestId("abc.http"));
+        assertFalse(Utils.isValidTestId("%tests%"));
+        assertFalse(Utils.isValidTestId(null));
+
+        assertTrue(Utils.containsReference("%tests%"));
+        assertTrue(Utils.containsReference("1.http %env.MORE_TESTS%"));
+        assertFalse(Utils.containsReference("1.http, 2"));
+        assertFalse(Utils.containsReference("100% 200%"));
+        assertFalse(Utils.containsReference(null));
+    }
+}
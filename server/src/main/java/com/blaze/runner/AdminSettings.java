@@ -15,8 +15,20 @@
 package com.blaze.runner;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.blaze.runner.utils.CredentialsKey;
 import jetbrains.buildServer.serverSide.ServerPaths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,40 +37,103 @@ import org.slf4j.LoggerFactory;
  * Entity for store admin properties:
  * - apiKeyID and apiKeySecret  - BlazeMeter user API key and API secret
  * - blazeMeterUrl - BlazeMeter URL
+ * <p>
+ * Properties are published as immutable {@link Snapshot}, so readers always get consistent values without locking.
+ * File is replaced atomically on save and reloaded when it is changed outside of TeamCity.
  */
 public class AdminSettings {
 
     private Logger logger = LoggerFactory.getLogger("com.blazemeter");
 
     public ServerPaths serverPaths;
-    private String apiKeyID = "";
-    private String apiKeySecret = "";
-    private String blazeMeterUrl = "";
+    private final File keyFile;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot("", "", ""));
+    private volatile WatchService watchService;
 
     public AdminSettings(ServerPaths serverPaths) {
+        this(new File(serverPaths.getConfigDir() + Constants.BZM_PROPERTIES_FILE));
         this.serverPaths = serverPaths;
     }
 
+    AdminSettings(File keyFile) {
+        this.keyFile = keyFile;
+    }
+
     public void init() {
         loadProperties();
+        startWatcher();
+    }
+
+    public void dispose() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.warn("Cannot stop watching BlazeMeter configuration: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return current settings, all values are read from the same version of configuration
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Save new settings to the configuration file and publish them. Saves and reloads are serialized,
+     * so the file and the published snapshot always have the same values
+     */
+    public synchronized void update(String apiKeyID, String apiKeySecret, String blazeMeterUrl) throws IOException {
+        Snapshot settings = new Snapshot(apiKeyID, apiKeySecret, blazeMeterUrl);
+        saveProperties(settings);
+        snapshot.set(settings);
     }
 
     public void saveProperties() throws IOException {
+        saveProperties(snapshot.get());
+    }
+
+    private synchronized void saveProperties(Snapshot settings) throws IOException {
         File keyFile = propFile();
         if (keyFile == null) {
             throw new RuntimeException("Property file not found");
         }
 
         Properties prop = new Properties();
-        FileWriter outFile = new FileWriter(keyFile);
-        prop.put("apiKeyID", this.apiKeyID);
-        prop.put("apiKeySecret", this.apiKeySecret);
-        prop.put("blazeMeterUrl", this.blazeMeterUrl);
-        prop.store(outFile, null);
-        outFile.close();
+        prop.put("apiKeyID", valueOf(settings.getApiKeyID()));
+        prop.put("apiKeySecret", valueOf(settings.getApiKeySecret()));
+        prop.put("blazeMeterUrl", valueOf(settings.getBlazeMeterUrl()));
+
+        File tmpFile = File.createTempFile(keyFile.getName(), ".tmp", keyFile.getAbsoluteFile().getParentFile());
+        try {
+            try (FileWriter outFile = new FileWriter(tmpFile)) {
+                prop.store(outFile, null);
+            }
+            try {
+                Files.move(tmpFile.toPath(), keyFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                logger.warn("Atomic move is not supported for " + keyFile.getAbsolutePath() + ", replace it");
+                Files.move(tmpFile.toPath(), keyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tmpFile.exists() && !tmpFile.delete()) {
+                logger.warn("Cannot delete " + tmpFile.getAbsolutePath());
+            }
+        }
+    }
+
+    private static String valueOf(String value) {
+        return value == null ? "" : value;
     }
 
-    public void loadProperties() {
+    /**
+     * Publish settings of the file, if they differ from the current ones
+     */
+    public synchronized void loadProperties() {
         File keyFile = propFile();
         if (keyFile == null) {
             return;
@@ -69,10 +144,11 @@ public class AdminSettings {
             inFile = new FileReader(keyFile);
             Properties prop = new Properties();
             prop.load(inFile);
-            this.apiKeyID = prop.getProperty("apiKeyID");
-            this.apiKeySecret = prop.getProperty("apiKeySecret");
-            this.blazeMeterUrl = prop.getProperty("blazeMeterUrl");
-            inFile.close();
+            Snapshot settings = new Snapshot(prop.getProperty("apiKeyID"), prop.getProperty("apiKeySecret"), prop.getProperty("blazeMeterUrl"));
+            Snapshot current = snapshot.get();
+            if (!settings.equals(current) && snapshot.compareAndSet(current, settings)) {
+                logger.info("BlazeMeter configuration loaded from " + keyFile.getAbsolutePath());
+            }
         } catch (IOException e) {
             logger.error("Cannot load configuration: " + e.getMessage());
         } finally {
@@ -86,8 +162,55 @@ public class AdminSettings {
         }
     }
 
+    private void startWatcher() {
+        final Path dir = keyFile.getAbsoluteFile().getParentFile().toPath();
+        final Path fileName = keyFile.toPath().getFileName();
+        final WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot watch BlazeMeter configuration, external changes require restart: " + e.getMessage());
+            return;
+        }
+        watchService = service;
+
+        Thread watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch(service, fileName);
+            }
+        }, "bzm-settings-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(WatchService service, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    loadProperties();
+                }
+                if (!key.reset()) {
+                    logger.warn("Stopped watching BlazeMeter configuration: directory is not accessible");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Stopped watching BlazeMeter configuration");
+        }
+    }
+
     private File propFile() {
-        File keyFile = new File(serverPaths.getConfigDir() + Constants.BZM_PROPERTIES_FILE);
         if (!keyFile.exists()) {
             try {
                 boolean created = keyFile.createNewFile();
@@ -104,26 +227,69 @@ public class AdminSettings {
 
 
     public String getApiKeyID() {
-        return apiKeyID;
-    }
-
-    public void setApiKeyID(String apiKeyID) {
-        this.apiKeyID = apiKeyID;
+        return snapshot.get().getApiKeyID();
     }
 
     public String getApiKeySecret() {
-        return apiKeySecret;
-    }
-
-    public void setApiKeySecret(String apiKeySecret) {
-        this.apiKeySecret = apiKeySecret;
+        return snapshot.get().getApiKeySecret();
     }
 
     public String getBlazeMeterUrl() {
-        return blazeMeterUrl;
+        return snapshot.get().getBlazeMeterUrl();
     }
 
-    public void setBlazeMeterUrl(String blazeMeterUrl) {
-        this.blazeMeterUrl = blazeMeterUrl;
+    /**
+     * Immutable version of admin properties
+     */
+    public static final class Snapshot {
+        private final String apiKeyID;
+        private final String apiKeySecret;
+        private final String blazeMeterUrl;
+
+        public Snapshot(String apiKeyID, String apiKeySecret, String blazeMeterUrl) {
+            this.apiKeyID = apiKeyID;
+            this.apiKeySecret = apiKeySecret;
+            this.blazeMeterUrl = blazeMeterUrl;
+        }
+
+        public String getApiKeyID() {
+            return apiKeyID;
+        }
+
+        public String getApiKeySecret() {
+            return apiKeySecret;
+        }
+
+        public String getBlazeMeterUrl() {
+            return blazeMeterUrl;
+        }
+
+        public CredentialsKey toCredentialsKey() {
+            return new CredentialsKey(apiKeyID, apiKeySecret, blazeMeterUrl);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Snapshot)) {
+                return false;
+            }
+            Snapshot that = (Snapshot) o;
+            return eq(apiKeyID, that.apiKeyID) && eq(apiKeySecret, that.apiKeySecret) && eq(blazeMeterUrl, that.blazeMeterUrl);
+        }
+
+        private static boolean eq(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = apiKeyID != null ? apiKeyID.hashCode() : 0;
+            result = 31 * result + (apiKeySecret != null ? apiKeySecret.hashCode() : 0);
+            result = 31 * result + (blazeMeterUrl != null ? blazeMeterUrl.hashCode() : 0);
+            return result;
+        }
     }
 }
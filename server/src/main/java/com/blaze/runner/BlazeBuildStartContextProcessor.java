@@ -40,9 +40,10 @@ public class BlazeBuildStartContextProcessor implements BuildStartContextProcess
     @Override
     public void updateParameters(@NotNull BuildStartContext buildStartContext) {
         logger.info("Add Shared Parameter user creds to build context");
-        buildStartContext.addSharedParameter(Constants.API_KEY_ID, validateValue(pluginSettings.getApiKeyID()));
-        buildStartContext.addSharedParameter(Constants.API_KEY_SECRET, validateValue(pluginSettings.getApiKeySecret()));
-        buildStartContext.addSharedParameter(Constants.BLAZEMETER_URL, validateValue(pluginSettings.getBlazeMeterUrl()));
+        AdminSettings.Snapshot settings = pluginSettings.getSnapshot();
+        buildStartContext.addSharedParameter(Constants.API_KEY_ID, validateValue(settings.getApiKeyID()));
+        buildStartContext.addSharedParameter(Constants.API_KEY_SECRET, validateValue(settings.getApiKeySecret()));
+        buildStartContext.addSharedParameter(Constants.BLAZEMETER_URL, validateValue(settings.getBlazeMeterUrl()));
     }
 
     private String validateValue(String value) {
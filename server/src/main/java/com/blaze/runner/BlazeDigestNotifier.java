@@ -0,0 +1,154 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner;
+
+import com.blaze.notifications.DigestEntry;
+import com.blaze.runner.utils.BzmReport;
+import com.blaze.runner.utils.DigestBuffer;
+import com.blaze.utils.ReportManifest;
+import jetbrains.buildServer.serverSide.BuildServerAdapter;
+import jetbrains.buildServer.serverSide.BuildSettings;
+import jetbrains.buildServer.serverSide.SBuildRunnerDescriptor;
+import jetbrains.buildServer.serverSide.SBuildServer;
+import jetbrains.buildServer.serverSide.SBuildType;
+import jetbrains.buildServer.serverSide.SRunningBuild;
+import jetbrains.buildServer.serverSide.artifacts.BuildArtifact;
+import jetbrains.buildServer.web.reportTabs.ReportTabUtil;
+import org.apache.commons.io.IOUtils;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects results of finished builds with BlazeMeter steps in digest notification mode.
+ * Failed results are also sent immediately by agent, digest contains all of them.
+ * Settings are taken from enabled steps the build was run with, not from the current build configuration.
+ */
+public class BlazeDigestNotifier extends BuildServerAdapter {
+
+    private static final Pattern REFERENCE = Pattern.compile("%([^%\\s]+)%");
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    private final SBuildServer server;
+    private final DigestBuffer digestBuffer;
+
+    public BlazeDigestNotifier(@NotNull SBuildServer server, @NotNull DigestBuffer digestBuffer) {
+        this.server = server;
+        this.digestBuffer = digestBuffer;
+    }
+
+    public void register() {
+        server.addListener(this);
+    }
+
+    public void dispose() {
+        server.removeListener(this);
+    }
+
+    @Override
+    public void buildFinished(@NotNull SRunningBuild build) {
+        SBuildType buildType = build.getBuildType();
+        if (buildType == null) {
+            return;
+        }
+
+        BuildSettings settings = build.getBuildPromotion().getBuildSettings();
+        List<Map<String, String>> runners = new ArrayList<>();
+        for (SBuildRunnerDescriptor runner : settings.getBuildRunners()) {
+            if (Constants.RUNNER_TYPE.equals(runner.getType()) && settings.isEnabled(runner.getId())) {
+                runners.add(runner.getParameters());
+            }
+        }
+        if (runners.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> webhooks = getDigestWebhooks(runners, build.getParametersProvider().getAll());
+        if (webhooks.isEmpty()) {
+            return;
+        }
+        DigestEntry entry = new DigestEntry(buildType.getFullName() + " #" + build.getBuildNumber(),
+                build.getStatusDescriptor().getText(), getReportUrl(build), build.getBuildStatus().isFailed());
+        for (Map.Entry<String, String> webhook : webhooks.entrySet()) {
+            digestBuffer.add(webhook.getValue(), webhook.getKey(), entry);
+        }
+    }
+
+    /**
+     * @param runners         - parameters of BlazeMeter steps the build was run with
+     * @param buildParameters - resolved parameters of the build, used to resolve %references% in webhook url
+     * @return map where key is webhook url, value - notification type, for steps in digest mode
+     */
+    static Map<String, String> getDigestWebhooks(List<Map<String, String>> runners, Map<String, String> buildParameters) {
+        Map<String, String> webhooks = new LinkedHashMap<>();
+        for (Map<String, String> params : runners) {
+            String url = params.get(Constants.SETING_WEBHOOK_URL);
+            if (!Constants.NOTIFICATION_MODE_DIGEST.equals(resolve(params.get(Constants.SETTING_NOTIFICATION_MODE), buildParameters))
+                    || url == null || url.trim().isEmpty()) {
+                continue;
+            }
+            webhooks.put(resolve(url, buildParameters).trim(), resolve(params.get(Constants.SETTING_NOTIFICATION_TYPE), buildParameters));
+        }
+        return webhooks;
+    }
+
+    /**
+     * Replace %name% references with values of build parameters, unknown references are kept as is
+     */
+    static String resolve(String value, Map<String, String> parameters) {
+        if (value == null || value.indexOf('%') < 0) {
+            return value;
+        }
+        Matcher matcher = REFERENCE.matcher(value);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String resolved = parameters.get(matcher.group(1));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(resolved == null ? matcher.group() : resolved));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private String getReportUrl(SRunningBuild build) {
+        BuildArtifact artifact = ReportTabUtil.getArtifact(build, Constants.RUNNER_DISPLAY_NAME + "/" + Constants.BZM_REPORTS_FILE);
+        if (artifact == null) {
+            return null;
+        }
+        InputStream inputStream = null;
+        try {
+            inputStream = artifact.getInputStream();
+            for (ReportManifest.Entry entry : BzmReport.parse(inputStream).getEntries()) {
+                if (entry.getReportUrl() != null && !entry.getReportUrl().isEmpty()) {
+                    return entry.getReportUrl();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to get the report of build " + build.getBuildId(), e);
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner;
+
+import com.blaze.metrics.Metrics;
+import com.blaze.runner.utils.ResponseUtils;
+import jetbrains.buildServer.controllers.BaseController;
+import jetbrains.buildServer.serverSide.auth.Permission;
+import jetbrains.buildServer.users.SUser;
+import jetbrains.buildServer.web.openapi.WebControllerManager;
+import jetbrains.buildServer.web.util.SessionUser;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Controller that exposes plugin metrics of TeamCity server in Prometheus text format.
+ * Metrics are available to users who can view server settings
+ */
+public class BlazeMetricsController extends BaseController {
+
+    public static final String PATH = "/blazemeter/metrics.html";
+
+    private final WebControllerManager myManager;
+
+    public BlazeMetricsController(@NotNull WebControllerManager manager) {
+        this.myManager = manager;
+    }
+
+    public void register() {
+        myManager.registerController(PATH, this);
+    }
+
+    @Override
+    protected ModelAndView doHandle(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response) throws Exception {
+        SUser user = SessionUser.getUser(request);
+        if (user == null || !user.isPermissionGrantedGlobally(Permission.VIEW_SERVER_SETTINGS)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return null;
+        }
+        ResponseUtils.write(request, response, "text/plain; version=0.0.4", Metrics.getInstance().toPrometheus());
+        return null;
+    }
+}
@@ -14,6 +14,9 @@
 
 package com.blaze.runner;
 
+import com.blaze.runner.utils.BzmReport;
+import com.blaze.runner.utils.ReportsCache;
+import com.blaze.utils.KpiSummary;
 import jetbrains.buildServer.serverSide.SBuild;
 import jetbrains.buildServer.serverSide.SBuildServer;
 import jetbrains.buildServer.serverSide.artifacts.BuildArtifact;
@@ -27,14 +30,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
-import java.io.BufferedReader;
-import java.io.FileDescriptor;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Present BlazeMeter report tab in Build results
@@ -43,60 +42,97 @@ public class BlazeReportTab extends ViewLogTab {
 
     private Logger logger = LoggerFactory.getLogger("com.blazemeter");
 
+    private final ReportsCache reportsCache;
+
     /**
      * Creates and registers tab for Build Results pages
      *
-     * @param pagePlaces used to register the tab
-     * @param server     server object
+     * @param pagePlaces   used to register the tab
+     * @param server       server object
+     * @param reportsCache cache of parsed reports of finished builds
      */
-    public BlazeReportTab(@NotNull PagePlaces pagePlaces, @NotNull SBuildServer server, @NotNull final PluginDescriptor pluginDescriptor) {
+    public BlazeReportTab(@NotNull PagePlaces pagePlaces, @NotNull SBuildServer server, @NotNull final PluginDescriptor pluginDescriptor,
+                          @NotNull ReportsCache reportsCache) {
         super("BlazeMeter Report", "bzm", pagePlaces, server);
+        this.reportsCache = reportsCache;
         setIncludeUrl(pluginDescriptor.getPluginResourcesPath("reportTab.jsp"));
     }
 
     @Override
     protected void fillModel(@NotNull Map<String, Object> model, @NotNull HttpServletRequest request, @NotNull SBuild build) {
-        BuildArtifact artifact = ReportTabUtil.getArtifact(build, Constants.RUNNER_DISPLAY_NAME + "/" + Constants.BZM_REPORTS_FILE);
-        if(artifact != null) {
-            try {
-                final Map<String, String> links = getReports(artifact.getInputStream());
-                if (!links.isEmpty()) {
-                    model.put("bzmReports", links);
-                } else {
-                    model.put("bzmMsg", "There is no report for this build");
-                }
-
-            } catch (IOException e) {
-                logger.error("Failed to get the report: ", e);
-                model.put("bzmMsg", "Failed to get the report: " + e.getMessage());
-            }
+        BzmReport report = getReport(build);
+        if (report.getMessage() != null) {
+            model.put("bzmMsg", report.getMessage());
         } else {
-            logger.info("No BlazeMeter artifacts for this build");
-            model.put("bzmMsg", "No BlazeMeter artifacts for this build");
+            model.put("bzmReports", report.getEntries());
+        }
+        if (report.getSummary() != null) {
+            model.put("bzmSummary", report.getSummary().toRows());
         }
     }
 
-    private Map<String, String> getReports(InputStream inputStream) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        final Map<String, String> links = new HashMap<>();
+    /**
+     * Called for every build page, so only existence of the artifact is checked, report is parsed in {@link #fillModel}
+     */
+    @Override
+    protected boolean isAvailable(@NotNull HttpServletRequest request, @NotNull SBuild build) {
+        return super.isAvailable(request, build)
+                && ReportTabUtil.isAvailable(build, Constants.RUNNER_DISPLAY_NAME + "/" + Constants.BZM_REPORTS_FILE);
+    }
 
-        String line;
-        while ((line = reader.readLine()) != null) {
-            String key = line;
-            logger.debug("Get key: " + key);
-            if ((line = reader.readLine()) != null) {
-                logger.debug("Get address: " + line);
-                links.put(key, line);
-            } else {
-                logger.warn("Key " + key + " has not url");
-                links.put(key, "");
+    /**
+     * Artifact of running build can still change, so only reports of finished builds are cached
+     */
+    private BzmReport getReport(@NotNull final SBuild build) {
+        if (!build.isFinished()) {
+            return loadReport(build);
+        }
+        return reportsCache.get(build.getBuildId(), new Callable<BzmReport>() {
+            @Override
+            public BzmReport call() throws Exception {
+                return loadReport(build);
             }
+        });
+    }
+
+    private BzmReport loadReport(SBuild build) {
+        BuildArtifact artifact = ReportTabUtil.getArtifact(build, Constants.RUNNER_DISPLAY_NAME + "/" + Constants.BZM_REPORTS_FILE);
+        if (artifact == null) {
+            logger.info("No BlazeMeter artifacts for build " + build.getBuildId());
+            return BzmReport.NO_ARTIFACT;
+        }
+
+        BzmReport report;
+        InputStream inputStream = null;
+        try {
+            inputStream = artifact.getInputStream();
+            report = BzmReport.parse(inputStream);
+        } catch (IOException e) {
+            logger.error("Failed to get the report: ", e);
+            return BzmReport.failed("Failed to get the report: " + e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(inputStream);
         }
-        return links;
+
+        KpiSummary summary = loadSummary(build);
+        return summary == null ? report : report.withSummary(summary);
     }
 
-    @Override
-    protected boolean isAvailable(@NotNull HttpServletRequest request, @NotNull SBuild build) {
-        return super.isAvailable(request, build) && ReportTabUtil.isAvailable(build, Constants.RUNNER_DISPLAY_NAME + "/" + Constants.BZM_REPORTS_FILE);
+    private KpiSummary loadSummary(SBuild build) {
+        BuildArtifact artifact = ReportTabUtil.getArtifact(build, Constants.RUNNER_DISPLAY_NAME + "/" + Constants.BZM_SUMMARY_FILE);
+        if (artifact == null) {
+            return null;
+        }
+
+        InputStream inputStream = null;
+        try {
+            inputStream = artifact.getInputStream();
+            return BzmReport.parseSummary(inputStream);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to get the summary of build " + build.getBuildId(), e);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
     }
 }
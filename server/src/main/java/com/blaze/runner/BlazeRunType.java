@@ -17,6 +17,7 @@ package com.blaze.runner;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.blaze.runner.utils.CredentialsKey;
 import jetbrains.buildServer.serverSide.PropertiesProcessor;
 import jetbrains.buildServer.serverSide.RunType;
 import jetbrains.buildServer.serverSide.RunTypeRegistry;
@@ -66,12 +67,22 @@ public class BlazeRunType extends RunType {
     @Nullable
     public Map<String, String> getDefaultRunnerProperties() {
         final Map<String, String> defaultProps = new HashMap<String, String>();
-        defaultProps.put(Constants.API_KEY_ID, pluginSettings.getApiKeyID());
-        defaultProps.put(Constants.API_KEY_SECRET, pluginSettings.getApiKeySecret());
-        defaultProps.put(Constants.BLAZEMETER_URL, pluginSettings.getBlazeMeterUrl());
+        AdminSettings.Snapshot settings = pluginSettings.getSnapshot();
+        defaultProps.put(Constants.API_KEY_ID, settings.getApiKeyID());
+        defaultProps.put(Constants.API_KEY_SECRET, settings.getApiKeySecret());
+        defaultProps.put(Constants.BLAZEMETER_URL, settings.getBlazeMeterUrl());
         return defaultProps;
     }
 
+    /**
+     * @return credentials that editBlazeRunnerParams.jsp uses to list workspaces, see {@link #getDefaultRunnerProperties()}
+     */
+    public CredentialsKey getDefaultCredentials() {
+        Map<String, String> defaultProps = getDefaultRunnerProperties();
+        return new CredentialsKey(defaultProps.get(Constants.API_KEY_ID), defaultProps.get(Constants.API_KEY_SECRET),
+                defaultProps.get(Constants.BLAZEMETER_URL));
+    }
+
     @Nullable
     public PropertiesProcessor getRunnerPropertiesProcessor() {
         return new BlazeRunTypePropertiesProcessor();
@@ -98,6 +109,7 @@ public class BlazeRunType extends RunType {
     public Map<String, String> getDefaultParameters() {
         final HashMap<String, String> map = new HashMap<String, String>();
         map.put(Constants.SETTING_NOTIFICATION_TYPE, "slack");
+        map.put(Constants.SETTING_NOTIFICATION_MODE, Constants.NOTIFICATION_MODE_BUILD);
         return map;
     }
 
@@ -14,8 +14,9 @@
 
 package com.blaze.runner;
 
-import com.blaze.runner.utils.BzmServerUtils;
-import com.blazemeter.api.explorer.User;
+import com.blaze.runner.utils.CredentialsKey;
+import com.blaze.runner.utils.CredentialsValidator;
+import com.blaze.runner.utils.TestsCatalogCache;
 import jetbrains.buildServer.controllers.AjaxRequestProcessor;
 import jetbrains.buildServer.controllers.BaseController;
 import jetbrains.buildServer.web.openapi.WebControllerManager;
@@ -37,14 +38,19 @@ public class BlazeRunTypeController extends BaseController {
     private Logger logger = LoggerFactory.getLogger("com.blazemeter");
     private final WebControllerManager myManager;
     private AdminSettings mainSettings;
+    private final TestsCatalogCache testsCatalogCache;
+    private final CredentialsValidator credentialsValidator;
 
 
     /**
      * @param manager
      */
-    public BlazeRunTypeController(@NotNull AdminSettings mainSettings, final WebControllerManager manager) {
+    public BlazeRunTypeController(@NotNull AdminSettings mainSettings, final WebControllerManager manager,
+                                  @NotNull TestsCatalogCache testsCatalogCache, @NotNull CredentialsValidator credentialsValidator) {
         this.mainSettings = mainSettings;
         this.myManager = manager;
+        this.testsCatalogCache = testsCatalogCache;
+        this.credentialsValidator = credentialsValidator;
     }
 
     public AdminSettings getMainSettings() {
@@ -84,11 +90,17 @@ public class BlazeRunTypeController extends BaseController {
         String validationWarnings = getValidationWarnings(apiKeyID, apiKeySecret, blazeMeterUrl);
         if (!validationWarnings.isEmpty()) {
             addResultElement(xmlResponse, "blazeWarningMessage", validationWarnings);
+            return;
+        }
+
+        CredentialsValidator.Result result = credentialsValidator.validate(new CredentialsKey(apiKeyID, apiKeySecret, blazeMeterUrl));
+        if (result.isPending()) {
+            addResultElement(xmlResponse, "blazePendingMessage", result.getMessage());
+        } else if (!result.isValid()) {
+            addResultElement(xmlResponse, "blazeWarningMessage", result.getMessage());
         } else {
-            mainSettings.setApiKeyID(apiKeyID);
-            mainSettings.setApiKeySecret(apiKeySecret);
-            mainSettings.setBlazeMeterUrl(blazeMeterUrl);
-            mainSettings.saveProperties();
+            mainSettings.update(apiKeyID, apiKeySecret, blazeMeterUrl);
+            testsCatalogCache.clear();
             addResultElement(xmlResponse, "blazeSuccessMessage", "Configuration saved successfully!");
         }
     }
@@ -102,17 +114,6 @@ public class BlazeRunTypeController extends BaseController {
             result += "Please, fill all fields with valid data before saving";
         }
 
-        if (result.isEmpty()) {
-            BzmServerUtils utils = new BzmServerUtils(apiKeyID, apiKeySecret, blazeMeterUrl);
-            try {
-                User user = User.getUser(utils);
-                assert user.getId() != null;
-            } catch (Exception e) {
-                logger.info("Invalid user credentials or/and server url, please check it: " + e.getMessage(), e);
-                result += "Invalid user credentials or/and server url, please check it ("  + e.getMessage() + ")";
-            }
-        }
-
         return result;
     }
 
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
+import com.blaze.utils.Utils;
 import jetbrains.buildServer.serverSide.InvalidProperty;
 import jetbrains.buildServer.serverSide.PropertiesProcessor;
 import jetbrains.buildServer.util.PropertiesUtil;
@@ -38,6 +39,17 @@ public class BlazeRunTypePropertiesProcessor implements PropertiesProcessor {
             result.add(new InvalidProperty(Constants.SETTINGS_ALL_TESTS_ID, "A test must be selected."));
         }
 
+        final String additionalTests = properties.get(Constants.SETTINGS_ADDITIONAL_TESTS);
+        if (!PropertiesUtil.isEmptyOrNull(additionalTests)) {
+            for (String additionalTest : Utils.getTestIds(null, additionalTests)) {
+                // parameter may hold several tests, ids are validated by agent after its resolution
+                if (!Utils.containsReference(additionalTest) && !Utils.isValidTestId(additionalTest)) {
+                    result.add(new InvalidProperty(Constants.SETTINGS_ADDITIONAL_TESTS, "Invalid test id: " + additionalTest));
+                    break;
+                }
+            }
+        }
+
         return result;
     }
 
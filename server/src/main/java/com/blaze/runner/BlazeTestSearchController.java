@@ -0,0 +1,105 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner;
+
+import com.blaze.runner.utils.ResponseUtils;
+import com.blaze.runner.utils.TestsCatalogCache;
+import com.blaze.runner.utils.TestsSearchIndex;
+import jetbrains.buildServer.controllers.BaseController;
+import jetbrains.buildServer.serverSide.auth.Permission;
+import jetbrains.buildServer.users.SUser;
+import jetbrains.buildServer.web.openapi.WebControllerManager;
+import jetbrains.buildServer.web.util.SessionUser;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Controller for typeahead search of tests in editBlazeRunnerParams.jsp.
+ * Returns JSON object with `tests` array; if tests cannot be loaded, the array is empty and `error` describes the reason.
+ * Has the same access rules and credentials as {@link BlazeTestsController}.
+ */
+public class BlazeTestSearchController extends BaseController {
+
+    public static final String PATH = "/blazemeter/searchTests.html";
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+    private final WebControllerManager myManager;
+    private final BlazeRunType runType;
+    private final TestsCatalogCache testsCatalogCache;
+
+    public BlazeTestSearchController(@NotNull BlazeRunType runType, @NotNull WebControllerManager manager,
+                                     @NotNull TestsCatalogCache testsCatalogCache) {
+        this.runType = runType;
+        this.myManager = manager;
+        this.testsCatalogCache = testsCatalogCache;
+    }
+
+    public void register() {
+        myManager.registerController(PATH, this);
+    }
+
+    @Override
+    protected ModelAndView doHandle(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response) throws Exception {
+        SUser user = SessionUser.getUser(request);
+        if (user == null || !user.isPermissionGrantedForAnyProject(Permission.EDIT_PROJECT)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return null;
+        }
+        JSONObject result = new JSONObject();
+        List<TestsSearchIndex.Hit> hits;
+        try {
+            TestsSearchIndex index = testsCatalogCache.getSearchIndex(runType.getDefaultCredentials());
+            hits = index.search(request.getParameter("q"), getLimit(request.getParameter("limit")));
+        } catch (IllegalStateException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Failed to search tests. Reason is: " + cause.getMessage());
+            hits = Collections.emptyList();
+            result.put("error", "Failed to get tests. " + cause.getMessage());
+        }
+
+        JSONArray tests = new JSONArray();
+        for (TestsSearchIndex.Hit hit : hits) {
+            JSONObject obj = new JSONObject();
+            obj.put("id", hit.getId());
+            obj.put("name", hit.getName());
+            obj.put("workspaceId", hit.getWorkspaceId());
+            obj.put("workspaceName", hit.getWorkspaceName());
+            tests.add(obj);
+        }
+        result.put("tests", tests);
+        ResponseUtils.write(request, response, "application/json", result.toString());
+        return null;
+    }
+
+    private static int getLimit(String limit) {
+        try {
+            return (limit == null) ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limit)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_LIMIT;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner;
+
+import com.blaze.runner.utils.ResponseUtils;
+import com.blaze.runner.utils.TestsCatalogCache;
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import jetbrains.buildServer.controllers.BaseController;
+import jetbrains.buildServer.serverSide.auth.Permission;
+import jetbrains.buildServer.users.SUser;
+import jetbrains.buildServer.web.openapi.WebControllerManager;
+import jetbrains.buildServer.web.util.SessionUser;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller that returns tests of one workspace as JSON for editBlazeRunnerParams.jsp.
+ * Available to users who can edit some project, tests are listed with the same credentials as in the page.
+ */
+public class BlazeTestsController extends BaseController {
+
+    public static final String PATH = "/blazemeter/workspaceTests.html";
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+    private final WebControllerManager myManager;
+    private final BlazeRunType runType;
+    private final TestsCatalogCache testsCatalogCache;
+
+    public BlazeTestsController(@NotNull BlazeRunType runType, @NotNull WebControllerManager manager,
+                                @NotNull TestsCatalogCache testsCatalogCache) {
+        this.runType = runType;
+        this.myManager = manager;
+        this.testsCatalogCache = testsCatalogCache;
+    }
+
+    public void register() {
+        myManager.registerController(PATH, this);
+    }
+
+    @Override
+    protected ModelAndView doHandle(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response) throws Exception {
+        SUser user = SessionUser.getUser(request);
+        if (user == null || !user.isPermissionGrantedForAnyProject(Permission.EDIT_PROJECT)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return null;
+        }
+        String workspaceId = request.getParameter("workspaceId");
+        if (workspaceId == null || workspaceId.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Parameter 'workspaceId' is required");
+            return null;
+        }
+
+        ResponseUtils.writeCached(request, response, "application/json", toJson(getWorkspaceTests(workspaceId)));
+        return null;
+    }
+
+    private List<AbstractTest> getWorkspaceTests(String workspaceId) {
+        Map<Workspace, List<AbstractTest>> tests = testsCatalogCache.getTests(runType.getDefaultCredentials());
+        for (Map.Entry<Workspace, List<AbstractTest>> entry : tests.entrySet()) {
+            if (workspaceId.equals(entry.getKey().getId())) {
+                return entry.getValue();
+            }
+        }
+        logger.info("Workspace id=" + workspaceId + " was not found");
+        return Collections.emptyList();
+    }
+
+    private String toJson(List<AbstractTest> tests) {
+        JSONArray result = new JSONArray();
+        for (AbstractTest test : tests) {
+            JSONObject obj = new JSONObject();
+            obj.put("id", test.getId() + "." + test.getTestType());
+            obj.put("name", test.getName());
+            result.add(obj);
+        }
+        return result.toString();
+    }
+}
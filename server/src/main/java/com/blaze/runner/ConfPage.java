@@ -54,9 +54,10 @@ public class ConfPage extends AdminPage {
     public void fillModel(Map<String, Object> model, HttpServletRequest request) {
         super.fillModel(model, request);
         if (mainSettings != null) {
-            model.put("apiKeyID", mainSettings.getApiKeyID());
-            model.put("apiKeySecret", mainSettings.getApiKeySecret());
-            model.put("blazeMeterUrl", mainSettings.getBlazeMeterUrl());
+            AdminSettings.Snapshot settings = mainSettings.getSnapshot();
+            model.put("apiKeyID", settings.getApiKeyID());
+            model.put("apiKeySecret", settings.getApiKeySecret());
+            model.put("blazeMeterUrl", settings.getBlazeMeterUrl());
         }
     }
 
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.utils.KpiSummary;
+import com.blaze.utils.ReportManifest;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed BlazeMeter report of one build, presented in BlazeMeter report tab
+ */
+public class BzmReport {
+
+    private static Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    private static final String LEGACY_NAME_PREFIX = "BlazeMeter report: ";
+
+    public static final BzmReport NO_ARTIFACT = new BzmReport(false, Collections.<ReportManifest.Entry>emptyList(), "No BlazeMeter artifacts for this build", false);
+
+    private final boolean hasArtifact;
+    private final List<ReportManifest.Entry> entries;
+    private final String message;
+    private final boolean failed;
+    private final KpiSummary summary;
+
+    private BzmReport(boolean hasArtifact, List<ReportManifest.Entry> entries, String message, boolean failed) {
+        this(hasArtifact, entries, message, failed, null);
+    }
+
+    private BzmReport(boolean hasArtifact, List<ReportManifest.Entry> entries, String message, boolean failed, KpiSummary summary) {
+        this.hasArtifact = hasArtifact;
+        this.entries = entries;
+        this.message = message;
+        this.failed = failed;
+        this.summary = summary;
+    }
+
+    public static BzmReport failed(String message) {
+        return new BzmReport(true, Collections.<ReportManifest.Entry>emptyList(), message, true);
+    }
+
+    /**
+     * Parse `BlazeMeterReports` artifact in one pass. It is either JSON {@link ReportManifest},
+     * or report name and report url on alternate lines, as it was written by previous versions of the plugin
+     */
+    public static BzmReport parse(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        reader.mark(1);
+        int first = reader.read();
+        reader.reset();
+
+        List<ReportManifest.Entry> entries;
+        if (first == '{') {
+            try {
+                entries = ReportManifest.parse(IOUtils.toString(reader)).getEntries();
+            } catch (JSONException e) {
+                throw new IOException("Malformed report manifest: " + e.getMessage(), e);
+            }
+        } else {
+            entries = parseLegacy(reader);
+        }
+        return new BzmReport(true, entries, entries.isEmpty() ? "There is no report for this build" : null, false);
+    }
+
+    private static List<ReportManifest.Entry> parseLegacy(BufferedReader reader) throws IOException {
+        final List<ReportManifest.Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String name = line.startsWith(LEGACY_NAME_PREFIX) ? line.substring(LEGACY_NAME_PREFIX.length()) : line;
+            logger.debug("Get key: " + line);
+            if ((line = reader.readLine()) != null) {
+                logger.debug("Get address: " + line);
+            } else {
+                logger.warn("Key " + name + " has not url");
+                line = "";
+            }
+            entries.add(new ReportManifest.Entry(name, null, null, line, 0, 0, null));
+        }
+        return entries;
+    }
+
+    /**
+     * Parse `BlazeMeterSummary.json` artifact written by agent
+     */
+    public static KpiSummary parseSummary(InputStream inputStream) throws IOException {
+        return KpiSummary.fromJSON(JSONObject.fromObject(IOUtils.toString(inputStream, "UTF-8")));
+    }
+
+    public BzmReport withSummary(KpiSummary summary) {
+        return new BzmReport(hasArtifact, entries, message, failed, summary);
+    }
+
+    public boolean hasArtifact() {
+        return hasArtifact;
+    }
+
+    /**
+     * @return reports of masters in start order, names are not unique
+     */
+    public List<ReportManifest.Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return warning for user or null if report has links
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return true if the artifact could not be read
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * @return KPIs of the test or null if build has no summary artifact
+     */
+    public KpiSummary getSummary() {
+        return summary;
+    }
+}
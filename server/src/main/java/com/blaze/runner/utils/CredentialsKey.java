@@ -0,0 +1,81 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Cache key for BlazeMeter user credentials and URL.
+ * Compares API key secret by its hash, so the secret itself is never used in equals/hashCode.
+ */
+public final class CredentialsKey {
+
+    private final String apiKeyId;
+    private final String apiKeySecret;
+    private final String secretHash;
+    private final String url;
+
+    public CredentialsKey(String apiKeyId, String apiKeySecret, String url) {
+        this.apiKeyId = apiKeyId == null ? "" : apiKeyId;
+        this.apiKeySecret = apiKeySecret == null ? "" : apiKeySecret;
+        this.secretHash = DigestUtils.sha256Hex(this.apiKeySecret);
+        this.url = url == null ? "" : url;
+    }
+
+    public String getApiKeyId() {
+        return apiKeyId;
+    }
+
+    public String getApiKeySecret() {
+        return apiKeySecret;
+    }
+
+    public String getSecretHash() {
+        return secretHash;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public BzmServerUtils createUtils() {
+        return new BzmServerUtils(apiKeyId, apiKeySecret, url);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CredentialsKey)) {
+            return false;
+        }
+        CredentialsKey that = (CredentialsKey) o;
+        return apiKeyId.equals(that.apiKeyId) && secretHash.equals(that.secretHash) && url.equals(that.url);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = apiKeyId.hashCode();
+        result = 31 * result + secretHash.hashCode();
+        result = 31 * result + url.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CredentialsKey{apiKeyId=" + apiKeyId + ", url=" + url + "}";
+    }
+}
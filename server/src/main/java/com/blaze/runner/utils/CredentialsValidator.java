@@ -0,0 +1,210 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.metrics.Metrics;
+import com.blazemeter.api.explorer.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates BlazeMeter credentials outside of web request threads.
+ * Checks run on a pool of `bzm.credentials.validator.threads` threads (by default it is 2) and are cancelled
+ * after `bzm.credentials.validator.timeout` seconds (by default it is 20). Connect and read timeouts of the HTTP call
+ * are half of it, so a stalled call does not hold the thread after the check is cancelled.
+ * Outcomes are cached by credentials for `bzm.credentials.validator.ttl` seconds (by default it is 60),
+ * timeouts are cached for `bzm.credentials.validator.timeoutTtl` seconds (by default it is 10).
+ */
+public class CredentialsValidator {
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    private final long timeout;
+    private final long ttl;
+    private final long timeoutTtl;
+    private final ConcurrentMap<CredentialsKey, Check> checks = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    public CredentialsValidator() {
+        this(Integer.getInteger("bzm.credentials.validator.threads", 2),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.credentials.validator.timeout", 20)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.credentials.validator.ttl", 60)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.credentials.validator.timeoutTtl", 10)));
+    }
+
+    public CredentialsValidator(int threads, long timeout, long ttl, long timeoutTtl) {
+        this.timeout = timeout;
+        this.ttl = ttl;
+        this.timeoutTtl = timeoutTtl;
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "bzm-credentials-validator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public void dispose() {
+        executor.shutdownNow();
+        checks.clear();
+    }
+
+    /**
+     * Never blocks: starts the check if there is no fresh outcome for these credentials
+     *
+     * @return outcome of the check or {@link Result#PENDING} while it is running
+     */
+    public Result validate(final CredentialsKey credentials) {
+        long now = System.currentTimeMillis();
+        Check check = checks.get(credentials);
+        if (check == null || check.isExpired(now)) {
+            Check started = new Check(now);
+            boolean replaced = (check == null) ? checks.putIfAbsent(credentials, started) == null : checks.replace(credentials, check, started);
+            if (!replaced) {
+                return validate(credentials);
+            }
+            Metrics.getInstance().recordCacheAccess("credentials", false);
+            check = started;
+            final Check running = started;
+            try {
+                running.future = executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Result result;
+                        try {
+                            result = check(credentials);
+                        } catch (RuntimeException e) {
+                            logger.warn("Cannot check credentials", e);
+                            result = Result.invalid("Cannot check credentials: " + e.getMessage());
+                        }
+                        running.complete(result, System.currentTimeMillis() + ttl);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                checks.remove(credentials, running);
+                return Result.invalid("Cannot check credentials: " + e.getMessage());
+            }
+        } else if (check.result != null) {
+            Metrics.getInstance().recordCacheAccess("credentials", true);
+        }
+        return check.getResult(credentials, now);
+    }
+
+    /**
+     * Request user of the credentials from BlazeMeter
+     */
+    protected Result check(CredentialsKey credentials) {
+        try {
+            BzmServerUtils utils = credentials.createUtils();
+            utils.setTimeout(timeout / 2);
+            User user = User.getUser(utils);
+            if (user.getId() == null) {
+                return Result.invalid("Invalid user credentials or/and server url, please check it");
+            }
+            return Result.VALID;
+        } catch (Exception e) {
+            logger.info("Invalid user credentials or/and server url, please check it: " + e.getMessage(), e);
+            return Result.invalid("Invalid user credentials or/and server url, please check it (" + e.getMessage() + ")");
+        }
+    }
+
+    private final class Check {
+        private final long startedAt;
+        private volatile Future<?> future;
+        private volatile Result result;
+        private volatile long expiresAt;
+
+        private Check(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private boolean isExpired(long now) {
+            return result != null && now > expiresAt;
+        }
+
+        private Result getResult(CredentialsKey credentials, long now) {
+            Result value = result;
+            if (value != null) {
+                return value;
+            }
+            if (now - startedAt > timeout) {
+                logger.warn("Checking of credentials for " + credentials.getUrl() + " timed out");
+                complete(Result.invalid("BlazeMeter did not respond in " + TimeUnit.MILLISECONDS.toSeconds(timeout) + " seconds, please try again"),
+                        now + timeoutTtl);
+                Future<?> f = future;
+                if (f != null) {
+                    f.cancel(true);
+                }
+                return result;
+            }
+            return Result.PENDING;
+        }
+
+        /**
+         * The first outcome wins, so a cancelled check does not replace its timeout
+         */
+        private synchronized void complete(Result value, long expiresAt) {
+            if (result == null) {
+                this.expiresAt = expiresAt;
+                this.result = value;
+            }
+        }
+    }
+
+    /**
+     * Outcome of credentials check
+     */
+    public static final class Result {
+        public static final Result PENDING = new Result(false, true, "Checking credentials...");
+        public static final Result VALID = new Result(true, false, null);
+
+        private final boolean valid;
+        private final boolean pending;
+        private final String message;
+
+        private Result(boolean valid, boolean pending, String message) {
+            this.valid = valid;
+            this.pending = pending;
+            this.message = message;
+        }
+
+        public static Result invalid(String message) {
+            return new Result(false, false, message);
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public boolean isPending() {
+            return pending;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
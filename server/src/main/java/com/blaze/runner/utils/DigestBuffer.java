@@ -0,0 +1,217 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.notifications.DigestEntry;
+import com.blaze.notifications.WebhookMessages;
+import com.blaze.notifications.WebhookSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers build results for digest notifications, one buffer per webhook.
+ * Buffer is sent as one message every `bzm.digest.interval` minutes (by default it is 60)
+ * or when it has `bzm.digest.maxResults` results (by default it is 20).
+ * Results of a failed delivery are kept for the next flush, up to `bzm.digest.maxBuffered` results per webhook
+ * (by default it is 1000), the oldest ones are dropped.
+ */
+public class DigestBuffer {
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    private final int maxResults;
+    private final int maxBuffered;
+    private final WebhookSender sender;
+    private final Map<Webhook, List<DigestEntry>> buffers = new LinkedHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "bzm-digest-notifier");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public DigestBuffer() {
+        this(TimeUnit.MINUTES.toMillis(Long.getLong("bzm.digest.interval", 60)),
+                Integer.getInteger("bzm.digest.maxResults", 20),
+                Integer.getInteger("bzm.digest.maxBuffered", 1000),
+                new WebhookSender());
+    }
+
+    public DigestBuffer(long interval, int maxResults, int maxBuffered, WebhookSender sender) {
+        this.maxResults = maxResults;
+        this.maxBuffered = maxBuffered;
+        this.sender = sender;
+        if (interval > 0) {
+            timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flushAll();
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to send digest notifications", e);
+                    }
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void add(String type, String url, DigestEntry entry) {
+        if (!WebhookSender.isValidUrl(url)) {
+            logger.warn("Invalid webhook url, result of " + entry.getName() + " is not added to digest");
+            return;
+        }
+        final Webhook webhook = new Webhook(type, url);
+        boolean full;
+        synchronized (buffers) {
+            List<DigestEntry> buffer = buffers.get(webhook);
+            if (buffer == null) {
+                buffer = new ArrayList<>();
+                buffers.put(webhook, buffer);
+            }
+            buffer.add(entry);
+            if (buffer.size() > maxBuffered) {
+                buffer.remove(0);
+            }
+            full = buffer.size() >= maxResults;
+        }
+        if (full) {
+            try {
+                timer.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush(webhook);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn("Digest notifier is stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Send all buffered results
+     */
+    public void flushAll() {
+        List<Webhook> webhooks;
+        synchronized (buffers) {
+            webhooks = new ArrayList<>(buffers.keySet());
+        }
+        for (Webhook webhook : webhooks) {
+            flush(webhook);
+        }
+    }
+
+    private void flush(Webhook webhook) {
+        List<DigestEntry> entries;
+        synchronized (buffers) {
+            entries = buffers.remove(webhook);
+        }
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            String payload = WebhookMessages.createDigest(webhook.type, entries);
+            if (payload == null) {
+                logger.warn("Unknown notification type " + webhook.type + ", drop digest of " + entries.size() + " results");
+                return;
+            }
+            int code = sender.send(webhook.url, payload);
+            if (WebhookSender.isSuccessful(code)) {
+                logger.info("Digest of " + entries.size() + " BlazeMeter results is sent");
+                return;
+            }
+            logger.warn("Failed to send digest notification, response code: " + code);
+            if (!WebhookSender.isRetriable(code)) {
+                return;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to send digest notification: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Failed to send digest notification, drop digest of " + entries.size() + " results", e);
+            return;
+        }
+        requeue(webhook, entries);
+    }
+
+    private void requeue(Webhook webhook, List<DigestEntry> entries) {
+        synchronized (buffers) {
+            List<DigestEntry> buffer = buffers.get(webhook);
+            if (buffer != null) {
+                entries.addAll(buffer);
+            }
+            while (entries.size() > maxBuffered) {
+                entries.remove(0);
+            }
+            buffers.put(webhook, entries);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        synchronized (buffers) {
+            for (List<DigestEntry> buffer : buffers.values()) {
+                size += buffer.size();
+            }
+        }
+        return size;
+    }
+
+    public void dispose() {
+        timer.shutdownNow();
+        flushAll();
+    }
+
+    private static final class Webhook {
+        private final String type;
+        private final String url;
+
+        private Webhook(String type, String url) {
+            this.type = type;
+            this.url = url;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Webhook)) {
+                return false;
+            }
+            Webhook webhook = (Webhook) o;
+            return String.valueOf(type).equals(String.valueOf(webhook.type)) && url.equals(webhook.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * String.valueOf(type).hashCode() + url.hashCode();
+        }
+    }
+}
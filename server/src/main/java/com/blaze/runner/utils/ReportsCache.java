@@ -0,0 +1,109 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.metrics.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of parsed reports of finished builds, keyed by build id.
+ * Use Java property `bzm.reports.cache.size` for configure max count of builds (by default it is 500).
+ * Every report is loaded once, concurrent requests for the same build wait for the same load.
+ */
+public class ReportsCache {
+
+    private final int maxSize;
+    private final Map<Long, FutureTask<BzmReport>> reports;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ReportsCache() {
+        this(Integer.getInteger("bzm.reports.cache.size", 500));
+    }
+
+    public ReportsCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.reports = new LinkedHashMap<Long, FutureTask<BzmReport>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FutureTask<BzmReport>> eldest) {
+                return size() > ReportsCache.this.maxSize;
+            }
+        };
+    }
+
+    public BzmReport get(long buildId, Callable<BzmReport> loader) {
+        FutureTask<BzmReport> task;
+        boolean loadHere = false;
+        synchronized (reports) {
+            task = reports.get(buildId);
+            if (task == null) {
+                task = new FutureTask<>(loader);
+                reports.put(buildId, task);
+                loadHere = true;
+            }
+        }
+
+        if (loadHere) {
+            misses.incrementAndGet();
+            task.run();
+        } else {
+            hits.incrementAndGet();
+        }
+        Metrics.getInstance().recordCacheAccess("reports", !loadHere);
+
+        BzmReport report;
+        try {
+            report = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report = BzmReport.failed("Interrupted while getting the report");
+        } catch (ExecutionException e) {
+            report = BzmReport.failed("Failed to get the report: " + e.getCause().getMessage());
+        }
+
+        if (report.isFailed()) {
+            invalidate(buildId, task);
+        }
+        return report;
+    }
+
+    private void invalidate(long buildId, FutureTask<BzmReport> task) {
+        synchronized (reports) {
+            if (reports.get(buildId) == task) {
+                reports.remove(buildId);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (reports) {
+            return reports.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+}
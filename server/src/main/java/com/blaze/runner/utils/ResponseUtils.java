@@ -0,0 +1,78 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Helpers for writing plugin AJAX responses
+ */
+public class ResponseUtils {
+
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    /**
+     * Write body with ETag revalidation and gzip compression, if client accepts it
+     */
+    public static void writeCached(HttpServletRequest request, HttpServletResponse response,
+                                   String contentType, String content) throws IOException {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        String etag = '"' + DigestUtils.md5Hex(body) + '"';
+
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("ETag", etag);
+        response.setHeader("Vary", "Accept-Encoding");
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        write(request, response, contentType, body);
+    }
+
+    /**
+     * Write body without caching, gzip compressed if client accepts it
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response,
+                             String contentType, String content) throws IOException {
+        response.setHeader("Cache-Control", "no-store");
+        response.setHeader("Vary", "Accept-Encoding");
+        write(request, response, contentType, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response,
+                              String contentType, byte[] body) throws IOException {
+        response.setContentType(contentType);
+        response.setCharacterEncoding("UTF-8");
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (body.length >= MIN_GZIP_SIZE && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            try (OutputStream out = new GZIPOutputStream(response.getOutputStream())) {
+                out.write(body);
+            }
+        } else {
+            response.setContentLength(body.length);
+            try (OutputStream out = response.getOutputStream()) {
+                out.write(body);
+            }
+        }
+    }
+}
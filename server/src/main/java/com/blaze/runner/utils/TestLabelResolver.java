@@ -0,0 +1,283 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.metrics.Metrics;
+import com.blaze.utils.Utils;
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import com.blazemeter.api.explorer.test.TestDetector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves test labels for viewBlazeRunnerParams.jsp without blocking page rendering.
+ * Unknown ids are queued and resolved in background in batches: from the tests catalog when it is cached
+ * (or when there are at least `bzm.tests.label.catalogThreshold` pending ids, by default it is 5),
+ * otherwise one by one. Resolved names are cached for `bzm.tests.label.ttl` seconds (by default it is 600),
+ * failed lookups - for `bzm.tests.label.negativeTtl` seconds (by default it is 60).
+ * Labels are cached per credentials, expired ones are evicted after each batch.
+ */
+public class TestLabelResolver {
+
+    private static volatile TestLabelResolver instance;
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    private final long ttl;
+    private final long negativeTtl;
+    private final int catalogThreshold;
+    private final ConcurrentMap<LabelKey, Label> labels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<LabelKey, Request> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Request> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "bzm-test-label-resolver");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public TestLabelResolver() {
+        this(TimeUnit.SECONDS.toMillis(Long.getLong("bzm.tests.label.ttl", 600)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.tests.label.negativeTtl", 60)),
+                Integer.getInteger("bzm.tests.label.catalogThreshold", 5));
+    }
+
+    public TestLabelResolver(long ttl, long negativeTtl, int catalogThreshold) {
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.catalogThreshold = catalogThreshold;
+    }
+
+    /**
+     * @return resolver registered in Spring context or null if plugin is not initialized yet
+     */
+    public static TestLabelResolver getInstance() {
+        return instance;
+    }
+
+    public void register() {
+        instance = this;
+    }
+
+    public void dispose() {
+        if (instance == this) {
+            instance = null;
+        }
+        worker.shutdownNow();
+    }
+
+    /**
+     * @param testId - testId in the following format 'id.type'
+     * @return test label if it is resolved, otherwise testId itself
+     */
+    public String getLabel(CredentialsKey credentials, String testId) {
+        String numberTestId = Utils.getTestId(testId);
+        LabelKey key = new LabelKey(credentials, numberTestId);
+        Label label = labels.get(key);
+        if (label != null && System.currentTimeMillis() < label.expiresAt) {
+            Metrics.getInstance().recordCacheAccess("test_labels", true);
+            return label.name == null ? testId : label.name + "(" + testId + ")";
+        }
+        Metrics.getInstance().recordCacheAccess("test_labels", false);
+
+        Request request = new Request(key, credentials, numberTestId);
+        if (pending.putIfAbsent(key, request) == null) {
+            queue.add(request);
+            schedule();
+        }
+        return testId;
+    }
+
+    int size() {
+        return labels.size();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        scheduled.set(false);
+                        drain();
+                    }
+                });
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                logger.warn("Cannot schedule resolving of test labels: " + e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        final Map<CredentialsKey, List<Request>> batches = new LinkedHashMap<>();
+        Request request;
+        while ((request = queue.poll()) != null) {
+            List<Request> batch = batches.get(request.credentials);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batches.put(request.credentials, batch);
+            }
+            batch.add(request);
+        }
+
+        for (Map.Entry<CredentialsKey, List<Request>> batch : batches.entrySet()) {
+            Set<String> testIds = new LinkedHashSet<>();
+            for (Request r : batch.getValue()) {
+                testIds.add(r.testId);
+            }
+
+            Map<String, String> names;
+            try {
+                names = resolveNames(batch.getKey(), testIds);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to resolve test labels", e);
+                names = new HashMap<>();
+            }
+
+            long now = System.currentTimeMillis();
+            for (Request r : batch.getValue()) {
+                String name = names.get(r.testId);
+                labels.put(r.key, new Label(name, now + (name == null ? negativeTtl : ttl)));
+                pending.remove(r.key, r);
+            }
+        }
+        evictExpired();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Label> iterator = labels.values().iterator();
+        while (iterator.hasNext()) {
+            if (now >= iterator.next().expiresAt) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return map where key is testId, value - test name. Unresolved ids are not present in the result
+     */
+    protected Map<String, String> resolveNames(CredentialsKey credentials, Collection<String> testIds) {
+        final Map<String, String> result = new HashMap<>();
+        TestsCatalogCache cache = TestsCatalogCache.getInstance();
+        if (cache != null) {
+            Map<Workspace, List<AbstractTest>> tests = cache.getCachedTests(credentials);
+            if (tests == null && testIds.size() >= catalogThreshold) {
+                tests = cache.getTests(credentials);
+            }
+            if (tests != null) {
+                for (List<AbstractTest> workspaceTests : tests.values()) {
+                    for (AbstractTest test : workspaceTests) {
+                        if (testIds.contains(test.getId())) {
+                            result.put(test.getId(), test.getName());
+                        }
+                    }
+                }
+            }
+        }
+
+        BzmServerUtils utils = null;
+        for (String testId : testIds) {
+            if (result.containsKey(testId)) {
+                continue;
+            }
+            if (utils == null) {
+                utils = credentials.createUtils();
+            }
+            try {
+                logger.info("Get test label for testId=" + testId);
+                AbstractTest test = TestDetector.detectTest(utils, testId);
+                if (test != null) {
+                    result.put(testId, test.getName());
+                }
+            } catch (Throwable e) {
+                logger.warn("Failed to get Test Label for testId=" + testId, e);
+            }
+        }
+        return result;
+    }
+
+    private static final class Label {
+        private final String name;
+        private final long expiresAt;
+
+        private Label(String name, long expiresAt) {
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class LabelKey {
+        private final CredentialsKey credentials;
+        private final String testId;
+
+        private LabelKey(CredentialsKey credentials, String testId) {
+            this.credentials = credentials;
+            this.testId = testId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LabelKey)) {
+                return false;
+            }
+            LabelKey that = (LabelKey) o;
+            return credentials.equals(that.credentials) && testId.equals(that.testId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * credentials.hashCode() + testId.hashCode();
+        }
+    }
+
+    private static final class Request {
+        private final LabelKey key;
+        private final CredentialsKey credentials;
+        private final String testId;
+
+        private Request(LabelKey key, CredentialsKey credentials, String testId) {
+            this.key = key;
+            this.credentials = credentials;
+            this.testId = testId;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.metrics.Metrics;
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide cache of BlazeMeter workspaces and tests, keyed by user credentials and BlazeMeter URL.
+ * Entries are refreshed in background when they are older than `bzm.tests.cache.refresh` seconds (by default it is 240)
+ * and expire after `bzm.tests.cache.ttl` seconds (by default it is 300).
+ * Concurrent loads for the same credentials share one fetch.
+ * Failed load does not replace cached tests, it is remembered for `bzm.tests.cache.failureTtl` seconds
+ * (by default it is 10): until then requests for these credentials fail immediately and no refresh is started.
+ * Tests loaded with some workspaces failed are kept for `bzm.tests.cache.failureTtl` seconds only.
+ * Callers get read-only snapshots: maps and lists are unmodifiable, workspaces are copies.
+ * Each entry also keeps a {@link TestsSearchIndex} that is updated incrementally on refresh.
+ */
+public class TestsCatalogCache {
+
+    private static volatile TestsCatalogCache instance;
+
+    private Logger logger = LoggerFactory.getLogger("com.blazemeter");
+
+    private final long ttl;
+    private final long refreshAfter;
+    private final long failureTtl;
+    private final ConcurrentMap<CredentialsKey, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CredentialsKey, FutureTask<Entry>> loading = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CredentialsKey, Failure> failures = new ConcurrentHashMap<>();
+    private final ExecutorService refresher = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "bzm-tests-catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final AtomicLong generation = new AtomicLong();
+
+    public TestsCatalogCache() {
+        this(TimeUnit.SECONDS.toMillis(Long.getLong("bzm.tests.cache.ttl", 300)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.tests.cache.refresh", 240)),
+                TimeUnit.SECONDS.toMillis(Long.getLong("bzm.tests.cache.failureTtl", 10)));
+    }
+
+    public TestsCatalogCache(long ttl, long refreshAfter, long failureTtl) {
+        this.ttl = ttl;
+        this.refreshAfter = Math.min(refreshAfter, ttl);
+        this.failureTtl = failureTtl;
+    }
+
+    /**
+     * @return cache registered in Spring context or null if plugin is not initialized yet
+     */
+    public static TestsCatalogCache getInstance() {
+        return instance;
+    }
+
+    public void register() {
+        instance = this;
+    }
+
+    public void dispose() {
+        if (instance == this) {
+            instance = null;
+        }
+        refresher.shutdownNow();
+        clear();
+    }
+
+    /**
+     * @return Map where key is Workspace, value - lists of Tests in this Workspace
+     * @throws IllegalStateException if tests cannot be loaded
+     */
+    public Map<Workspace, List<AbstractTest>> getTests(CredentialsKey key) {
+        return getEntry(key).snapshot();
+    }
+
+    /**
+     * @return search index over the same tests as {@link #getTests(CredentialsKey)}
+     */
+    public TestsSearchIndex getSearchIndex(CredentialsKey key) {
+        return getEntry(key).index;
+    }
+
+    /**
+     * @return cached tests or null, never loads tests from BlazeMeter
+     */
+    public Map<Workspace, List<AbstractTest>> getCachedTests(CredentialsKey key) {
+        Entry entry = entries.get(key);
+        return (entry != null && System.currentTimeMillis() < entry.expiresAt) ? entry.snapshot() : null;
+    }
+
+    private Entry getEntry(CredentialsKey key) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        Failure failure = failures.get(key);
+        boolean failedRecently = failure != null && now < failure.failedAt + failureTtl;
+        if (entry != null && now < entry.expiresAt) {
+            Metrics.getInstance().recordCacheAccess("tests_catalog", true);
+            if (now >= entry.refreshAt && !failedRecently) {
+                refreshAsync(key);
+            }
+            return entry;
+        }
+        Metrics.getInstance().recordCacheAccess("tests_catalog", false);
+        if (failedRecently) {
+            throw new IllegalStateException("Failed to load BlazeMeter tests", failure.error);
+        }
+        return load(key);
+    }
+
+    /**
+     * Drop all cached tests, e.g. when user credentials were changed
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+        failures.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry load(CredentialsKey key) {
+        FutureTask<Entry> task = createTask(key);
+        FutureTask<Entry> existing = loading.putIfAbsent(key, task);
+        if (existing == null) {
+            task.run();
+        } else {
+            task = existing;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading BlazeMeter tests", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load BlazeMeter tests", e.getCause());
+        }
+    }
+
+    private void refreshAsync(CredentialsKey key) {
+        FutureTask<Entry> task = createTask(key);
+        if (loading.putIfAbsent(key, task) == null) {
+            try {
+                refresher.execute(task);
+            } catch (RuntimeException e) {
+                loading.remove(key, task);
+                logger.warn("Cannot schedule refresh of BlazeMeter tests: " + e.getMessage());
+            }
+        }
+    }
+
+    private FutureTask<Entry> createTask(final CredentialsKey key) {
+        final long startGeneration = generation.get();
+        return new FutureTask<Entry>(new Callable<Entry>() {
+            @Override
+            public Entry call() throws Exception {
+                logger.info("Load BlazeMeter tests for " + key);
+                Map<Workspace, List<AbstractTest>> tests;
+                try {
+                    tests = loadTests(key);
+                } catch (Exception e) {
+                    logger.warn("Failed to load BlazeMeter tests for " + key + ": " + e.getMessage());
+                    Failure failure = new Failure(e, System.currentTimeMillis());
+                    failures.put(key, failure);
+                    if (startGeneration != generation.get()) {
+                        failures.remove(key, failure);
+                    }
+                    throw e;
+                }
+                failures.remove(key);
+                Entry previous = entries.get(key);
+                TestsSearchIndex index = (previous == null) ? TestsSearchIndex.EMPTY : previous.index;
+                Entry entry = createEntry(tests, index.update(tests), System.currentTimeMillis());
+                // clear() may run at any moment: put first, then drop the entry if the cache was cleared meanwhile
+                entries.put(key, entry);
+                if (startGeneration != generation.get()) {
+                    entries.remove(key, entry);
+                }
+                evictExpired();
+                return entry;
+            }
+        }) {
+            @Override
+            protected void done() {
+                loading.remove(key, this);
+            }
+        };
+    }
+
+    /**
+     * @throws Exception if tests cannot be loaded, cached tests are kept in this case
+     */
+    protected Map<Workspace, List<AbstractTest>> loadTests(CredentialsKey key) throws Exception {
+        return new TestsUtils(key.createUtils()).fetchTests();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now >= iterator.next().expiresAt) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private Entry createEntry(Map<Workspace, List<AbstractTest>> tests, TestsSearchIndex index, long loadedAt) {
+        Map<Workspace, List<AbstractTest>> copy = new LinkedHashMap<>();
+        boolean partial = false;
+        for (Map.Entry<Workspace, List<AbstractTest>> workspace : tests.entrySet()) {
+            copy.put(workspace.getKey(), Collections.unmodifiableList(workspace.getValue()));
+            partial |= TestsLoader.isFailed(workspace.getKey());
+        }
+        if (partial) {
+            logger.warn("Tests of some workspaces are not loaded, they will be reloaded in " + failureTtl + " ms");
+            return new Entry(copy, index, loadedAt + failureTtl, loadedAt + failureTtl);
+        }
+        return new Entry(copy, index, loadedAt + ttl, loadedAt + refreshAfter);
+    }
+
+    private static final class Failure {
+        private final Exception error;
+        private final long failedAt;
+
+        private Failure(Exception error, long failedAt) {
+            this.error = error;
+            this.failedAt = failedAt;
+        }
+    }
+
+    private static final class Entry {
+        private final Map<Workspace, List<AbstractTest>> tests;
+        private final TestsSearchIndex index;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        private Entry(Map<Workspace, List<AbstractTest>> tests, TestsSearchIndex index, long expiresAt, long refreshAt) {
+            this.tests = tests;
+            this.index = index;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        /**
+         * Workspaces are mutable, so every caller gets its own copies
+         */
+        private Map<Workspace, List<AbstractTest>> snapshot() {
+            Map<Workspace, List<AbstractTest>> result = new LinkedHashMap<>();
+            for (Map.Entry<Workspace, List<AbstractTest>> workspace : tests.entrySet()) {
+                Workspace original = workspace.getKey();
+                result.put(new Workspace(original.getUtils(), original.getId(), original.getName()), workspace.getValue());
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blazemeter.api.explorer.Account;
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import com.blazemeter.api.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads workspaces and tests of several accounts concurrently.
+ * Use Java properties `bzm.tests.loader.threads` (by default it is 8) and
+ * `bzm.tests.loader.timeout` (in seconds, by default it is 60) for configure it.
+ */
+public class TestsLoader {
+
+    public static final int DEFAULT_PARALLELISM = Integer.getInteger("bzm.tests.loader.threads", 8);
+    public static final long DEFAULT_TIMEOUT = TimeUnit.SECONDS.toMillis(Long.getLong("bzm.tests.loader.timeout", 60));
+
+    /**
+     * Appended to id of the workspace whose tests cannot be loaded
+     */
+    public static final String FAILED_WORKSPACE_SUFFIX = ")(Failed to get tests";
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    public static final Comparator<AbstractTest> TESTS_COMPARATOR = new Comparator<AbstractTest>() {
+        @Override
+        public int compare(AbstractTest o1, AbstractTest o2) {
+            return o1.getName().compareToIgnoreCase(o2.getName());
+        }
+    };
+
+    private final Logger logger;
+    private final int parallelism;
+    private final long timeout;
+
+    public TestsLoader(Logger logger) {
+        this(logger, DEFAULT_PARALLELISM, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param parallelism - max count of concurrent requests to BlazeMeter
+     * @param timeout     - overall deadline for loading all tests in milliseconds
+     */
+    public TestsLoader(Logger logger, int parallelism, long timeout) {
+        this.logger = logger;
+        this.parallelism = Math.max(1, parallelism);
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return Map where key is Workspace, value - name-sorted lists of Tests in this Workspace
+     */
+    public Map<Workspace, List<AbstractTest>> load(List<Account> accounts) {
+        final long deadline = System.currentTimeMillis() + timeout;
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, createThreadFactory());
+        try {
+            List<Workspace> workspaces = loadWorkspaces(executor, accounts, deadline);
+            return loadTests(executor, workspaces, deadline);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Workspace> loadWorkspaces(ExecutorService executor, List<Account> accounts, long deadline) {
+        final Map<Account, Future<List<Workspace>>> futures = new LinkedHashMap<>();
+        for (final Account account : accounts) {
+            futures.put(account, executor.submit(new Callable<List<Workspace>>() {
+                @Override
+                public List<Workspace> call() throws Exception {
+                    return account.getWorkspaces();
+                }
+            }));
+        }
+
+        final List<Workspace> workspaces = new ArrayList<>();
+        for (Map.Entry<Account, Future<List<Workspace>>> entry : futures.entrySet()) {
+            try {
+                workspaces.addAll(await(entry.getValue(), deadline));
+            } catch (Exception e) {
+                Throwable cause = getCause(e);
+                logger.error("Failed to get workspaces for account id =" + entry.getKey().getId() + ". Reason is: " + cause.getMessage(), cause);
+            }
+        }
+        return workspaces;
+    }
+
+    private Map<Workspace, List<AbstractTest>> loadTests(ExecutorService executor, List<Workspace> workspaces, long deadline) {
+        final Map<Workspace, Future<List<AbstractTest>>> singleTests = new LinkedHashMap<>();
+        final Map<Workspace, Future<List<AbstractTest>>> multiTests = new HashMap<>();
+        for (final Workspace workspace : workspaces) {
+            singleTests.put(workspace, executor.submit(new Callable<List<AbstractTest>>() {
+                @Override
+                public List<AbstractTest> call() throws Exception {
+                    return new ArrayList<AbstractTest>(workspace.getSingleTests());
+                }
+            }));
+            multiTests.put(workspace, executor.submit(new Callable<List<AbstractTest>>() {
+                @Override
+                public List<AbstractTest> call() throws Exception {
+                    return new ArrayList<AbstractTest>(workspace.getMultiTests());
+                }
+            }));
+        }
+
+        final Map<Workspace, List<AbstractTest>> result = new HashMap<>();
+        for (Workspace workspace : workspaces) {
+            final List<AbstractTest> tests = new ArrayList<>();
+            boolean hasError = false;
+            try {
+                tests.addAll(await(singleTests.get(workspace), deadline));
+            } catch (Exception e) {
+                Throwable cause = getCause(e);
+                logger.error("Failed to get single tests for workspace id =" + workspace.getId() + ". Reason is: " + cause.getMessage(), cause);
+                hasError = true;
+            }
+
+            try {
+                tests.addAll(await(multiTests.get(workspace), deadline));
+            } catch (Exception e) {
+                Throwable cause = getCause(e);
+                logger.error("Failed to get multi tests for workspace id =" + workspace.getId() + ". Reason is: " + cause.getMessage(), cause);
+                hasError = true;
+            }
+
+            if (tests.isEmpty() && !hasError) {
+                workspace.setId(workspace.getId() + ")(No tests for this workspace");
+            } else if (hasError) {
+                workspace.setId(workspace.getId() + FAILED_WORKSPACE_SUFFIX);
+            }
+
+            Collections.sort(tests, TESTS_COMPARATOR);
+            result.put(workspace, tests);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if tests of the workspace cannot be loaded, so the result of {@link #load(List)} is incomplete
+     */
+    public static boolean isFailed(Workspace workspace) {
+        return workspace.getId() != null && workspace.getId().endsWith(FAILED_WORKSPACE_SUFFIX);
+    }
+
+    private <T> T await(Future<T> future, long deadline) throws InterruptedException, ExecutionException, TimeoutException {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0 && !future.isDone()) {
+            future.cancel(true);
+            throw new TimeoutException("Loading of tests took more than " + timeout + " ms");
+        }
+        try {
+            return future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TimeoutException("Loading of tests took more than " + timeout + " ms");
+        }
+    }
+
+    private static Throwable getCause(Exception e) {
+        if (e instanceof ExecutionException && e.getCause() != null) {
+            return e.getCause();
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        return e;
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "bzm-tests-loader-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,404 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable in-memory index for typeahead search over test names and ids.
+ * Queries shorter than 3 chars are served by prefix search over sorted names and ids,
+ * longer queries by intersection of trigram posting lists.
+ * Index is split into per-workspace segments, so {@link #update(Map)} rebuilds only changed workspaces.
+ */
+public final class TestsSearchIndex {
+
+    public static final TestsSearchIndex EMPTY = new TestsSearchIndex(Collections.<String, Segment>emptyMap());
+
+    private static final int GRAM = 3;
+
+    private final Map<String, Segment> segments;
+
+    private TestsSearchIndex(Map<String, Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * @return new index for the catalog, segments of unchanged workspaces are reused from this index
+     */
+    public TestsSearchIndex update(Map<Workspace, List<AbstractTest>> tests) {
+        final Map<String, Segment> result = new LinkedHashMap<>();
+        for (Map.Entry<Workspace, List<AbstractTest>> entry : tests.entrySet()) {
+            Workspace workspace = entry.getKey();
+            List<AbstractTest> workspaceTests = entry.getValue();
+            long fingerprint = fingerprint(workspace, workspaceTests);
+            Segment segment = segments.get(workspace.getId());
+            if (segment == null || segment.fingerprint != fingerprint) {
+                segment = new Segment(workspace.getId(), workspace.getName(), workspaceTests, fingerprint);
+            }
+            result.put(workspace.getId(), segment);
+        }
+        return new TestsSearchIndex(result);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments.values()) {
+            size += segment.ids.length;
+        }
+        return size;
+    }
+
+    boolean sharesSegment(TestsSearchIndex other, String workspaceId) {
+        Segment segment = segments.get(workspaceId);
+        return segment != null && segment == other.segments.get(workspaceId);
+    }
+
+    /**
+     * @return top `limit` tests that contain the query in name or id, best matches first
+     */
+    public List<Hit> search(String query, int limit) {
+        if (query == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String q = query.trim().toLowerCase(Locale.ENGLISH);
+        if (q.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Hit> result = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            segment.search(q, limit, result);
+        }
+
+        Collections.sort(result, HIT_COMPARATOR);
+        return (result.size() > limit) ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private static long fingerprint(Workspace workspace, List<AbstractTest> tests) {
+        long hash = workspace.getName() == null ? 0 : workspace.getName().hashCode();
+        for (AbstractTest test : tests) {
+            hash = 31 * hash + test.getId().hashCode();
+            hash = 31 * hash + (test.getName() == null ? 0 : test.getName().hashCode());
+            hash = 31 * hash + (test.getTestType() == null ? 0 : test.getTestType().hashCode());
+        }
+        return 31 * hash + tests.size();
+    }
+
+    private static final Comparator<Hit> HIT_COMPARATOR = new Comparator<Hit>() {
+        @Override
+        public int compare(Hit o1, Hit o2) {
+            int res = Integer.compare(o1.rank, o2.rank);
+            if (res == 0) {
+                res = o1.name.compareToIgnoreCase(o2.name);
+            }
+            if (res == 0) {
+                res = o1.id.compareTo(o2.id);
+            }
+            return res;
+        }
+    };
+
+    /**
+     * Tests of one workspace, stored in case-insensitive name order.
+     * So posting lists are in name order too and search can stop as soon as it found enough best matches.
+     */
+    private static final class Segment {
+        private static final int RANKS = 4;
+
+        private final String workspaceId;
+        private final String workspaceName;
+        private final long fingerprint;
+        private final String[] ids;
+        private final String[] names;
+        private final String[] keys;
+        private final int[] byId;
+        private final Map<String, int[]> grams;
+
+        private Segment(String workspaceId, String workspaceName, List<AbstractTest> tests, long fingerprint) {
+            this.workspaceId = workspaceId;
+            this.workspaceName = workspaceName;
+            this.fingerprint = fingerprint;
+            List<AbstractTest> sorted = new ArrayList<>(tests);
+            Collections.sort(sorted, new Comparator<AbstractTest>() {
+                @Override
+                public int compare(AbstractTest o1, AbstractTest o2) {
+                    return compareIgnoreCase(nameOf(o1), nameOf(o2));
+                }
+            });
+            int size = sorted.size();
+            this.ids = new String[size];
+            this.names = new String[size];
+            this.keys = new String[size];
+            for (int i = 0; i < size; i++) {
+                AbstractTest test = sorted.get(i);
+                ids[i] = test.getId() + "." + test.getTestType();
+                names[i] = nameOf(test);
+                keys[i] = names[i].toLowerCase(Locale.ENGLISH) + '\n' + ids[i].toLowerCase(Locale.ENGLISH);
+            }
+            this.byId = sortedBy(ids);
+            this.grams = buildGrams(keys);
+        }
+
+        private void search(String q, int limit, List<Hit> result) {
+            Matches matches = new Matches(limit);
+            if (q.length() < GRAM) {
+                searchPrefix(q, matches);
+            } else {
+                searchGrams(q, matches);
+            }
+            matches.collect(this, result);
+        }
+
+        private void searchPrefix(String q, Matches matches) {
+            int from = lowerBound(names, null, q);
+            for (int idx = from; idx < names.length && names[idx].regionMatches(true, 0, q, 0, q.length()); idx++) {
+                if (!matches.add(idx, 0)) {
+                    break;
+                }
+            }
+
+            from = lowerBound(ids, byId, q);
+            for (int i = from; i < byId.length && ids[byId[i]].regionMatches(true, 0, q, 0, q.length()); i++) {
+                int idx = byId[i];
+                if (!names[idx].regionMatches(true, 0, q, 0, q.length())) {
+                    matches.add(idx, 1);
+                }
+            }
+        }
+
+        private void searchGrams(String q, Matches matches) {
+            List<int[]> postings = new ArrayList<>();
+            for (int i = 0; i + GRAM <= q.length(); i++) {
+                int[] posting = grams.get(q.substring(i, i + GRAM));
+                if (posting == null) {
+                    return;
+                }
+                postings.add(posting);
+            }
+            Collections.sort(postings, new Comparator<int[]>() {
+                @Override
+                public int compare(int[] o1, int[] o2) {
+                    return Integer.compare(o1.length, o2.length);
+                }
+            });
+
+            int[] candidates = postings.get(0);
+            for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+                candidates = intersect(candidates, postings.get(i));
+            }
+            for (int idx : candidates) {
+                String key = keys[idx];
+                int pos = key.indexOf(q);
+                if (pos >= 0 && !matches.add(idx, rank(idx, pos))) {
+                    break;
+                }
+            }
+        }
+
+        private int rank(int idx, int pos) {
+            if (pos == 0) {
+                return 0;
+            }
+            if (pos == names[idx].length() + 1) {
+                return 1;
+            }
+            if (!Character.isLetterOrDigit(keys[idx].charAt(pos - 1))) {
+                return 2;
+            }
+            return 3;
+        }
+
+        private static int lowerBound(String[] values, int[] order, String q) {
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareIgnoreCase(values[order == null ? mid : order[mid]], q) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static String nameOf(AbstractTest test) {
+            return test.getName() == null ? "" : test.getName();
+        }
+
+        private static int[] sortedBy(final String[] values) {
+            Integer[] order = new Integer[values.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return compareIgnoreCase(values[o1], values[o2]);
+                }
+            });
+            int[] result = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = order[i];
+            }
+            return result;
+        }
+
+        private static Map<String, int[]> buildGrams(String[] keys) {
+            Map<String, Posting> postings = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                String key = keys[i];
+                for (int j = 0; j + GRAM <= key.length(); j++) {
+                    String gram = key.substring(j, j + GRAM);
+                    Posting posting = postings.get(gram);
+                    if (posting == null) {
+                        posting = new Posting();
+                        postings.put(gram, posting);
+                    }
+                    posting.add(i);
+                }
+            }
+            Map<String, int[]> result = new HashMap<>(postings.size() * 4 / 3 + 1);
+            for (Map.Entry<String, Posting> entry : postings.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().toArray());
+            }
+            return result;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, k = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[k++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, k);
+        }
+
+        private static int compareIgnoreCase(String s1, String s2) {
+            return String.CASE_INSENSITIVE_ORDER.compare(s1, s2);
+        }
+    }
+
+    /**
+     * First `limit` matches of every rank, added in name order
+     */
+    private static final class Matches {
+        private final int limit;
+        private final int[][] buckets = new int[Segment.RANKS][];
+        private final int[] sizes = new int[Segment.RANKS];
+
+        private Matches(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * @return false if no better match can be found anymore
+         */
+        private boolean add(int idx, int rank) {
+            if (sizes[rank] < limit) {
+                if (buckets[rank] == null) {
+                    buckets[rank] = new int[Math.min(limit, 16)];
+                } else if (sizes[rank] == buckets[rank].length) {
+                    buckets[rank] = Arrays.copyOf(buckets[rank], Math.min(limit, sizes[rank] * 2));
+                }
+                buckets[rank][sizes[rank]++] = idx;
+            }
+            return sizes[0] < limit;
+        }
+
+        private void collect(Segment segment, List<Hit> result) {
+            int count = 0;
+            for (int rank = 0; rank < Segment.RANKS && count < limit; rank++) {
+                for (int i = 0; i < sizes[rank] && count < limit; i++, count++) {
+                    int idx = buckets[rank][i];
+                    result.add(new Hit(segment.ids[idx], segment.names[idx], segment.workspaceId, segment.workspaceName, rank));
+                }
+            }
+        }
+    }
+
+    private static final class Posting {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Search result
+     */
+    public static final class Hit {
+        private final String id;
+        private final String name;
+        private final String workspaceId;
+        private final String workspaceName;
+        private final int rank;
+
+        private Hit(String id, String name, String workspaceId, String workspaceName, int rank) {
+            this.id = id;
+            this.name = name;
+            this.workspaceId = workspaceId;
+            this.workspaceName = workspaceName;
+            this.rank = rank;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getWorkspaceId() {
+            return workspaceId;
+        }
+
+        public String getWorkspaceName() {
+            return workspaceName;
+        }
+    }
+}
@@ -24,9 +24,7 @@ import com.blazemeter.api.explorer.test.TestDetector;
 import com.blazemeter.api.logging.Logger;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -61,11 +59,16 @@ public class TestsUtils {
 
     /**
      * Used in viewBlazeRunnerParams.jsp
+     * Returns testId itself while its label is being resolved in background
      *
      * @param testId - testId in the following format 'id.type'
      * @return test label
      */
     public String getTestLabel(String testId) {
+        TestLabelResolver resolver = TestLabelResolver.getInstance();
+        if (resolver != null && testId != null) {
+            return resolver.getLabel(new CredentialsKey(utils.getApiKeyId(), utils.getApiKeySecret(), utils.getAddress()), testId);
+        }
         Logger logger = utils.getLogger();
         String numberTestId = Utils.getTestId(testId);
         logger.info("Get test label for testId=" + numberTestId);
@@ -82,24 +85,45 @@ public class TestsUtils {
     /**
      * Used in editBlazeRunnerParams.jsp
      *
-     * @return Map where key is Workspace, value - lists of Tests in this Workspace
+     * @return Map where key is Workspace, value - lists of Tests in this Workspace.
+     * If there are no tests or they cannot be loaded, the only Workspace describes it
      */
     public Map<Workspace, List<AbstractTest>> getTests() {
-        final Map<Workspace, List<AbstractTest>> result = new HashMap<>();
+        TestsCatalogCache cache = TestsCatalogCache.getInstance();
+        if (cache == null) {
+            return loadTests();
+        }
         try {
-            User user = new User(utils);
-            List<Account> accounts = user.getAccounts();
-            for (Account account : accounts) {
-                addTestsForAccount(account, result);
-            }
+            return checkForEmptyTests(cache.getTests(new CredentialsKey(utils.getApiKeyId(), utils.getApiKeySecret(), utils.getAddress())));
+        } catch (RuntimeException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            utils.getLogger().warn("Failed to get tests from cache. Reason is: " + cause.getMessage(), ex);
+            return generateFailedTestMap(cause);
+        }
+    }
+
+    /**
+     * Load tests from BlazeMeter, bypassing the server-wide cache
+     *
+     * @return the same as {@link #getTests()}
+     */
+    public Map<Workspace, List<AbstractTest>> loadTests() {
+        try {
+            return checkForEmptyTests(fetchTests());
         } catch (Throwable ex) {
             utils.getLogger().error("Failed to get tests. Reason is: " + ex.getMessage(), ex);
-            if (result.isEmpty()) {
-                result.put(new Workspace(utils, ex.getMessage(), "Failed to get tests. "), Collections.<AbstractTest>emptyList());
-                return result;
-            }
+            return generateFailedTestMap(ex);
         }
-        return checkForEmptyTests(result);
+    }
+
+    /**
+     * @return Map where key is Workspace, value - lists of Tests in this Workspace, without placeholders for presentation
+     * @throws IOException if accounts cannot be loaded
+     */
+    public Map<Workspace, List<AbstractTest>> fetchTests() throws IOException {
+        User user = new User(utils);
+        List<Account> accounts = user.getAccounts();
+        return new TestsLoader(utils.getLogger()).load(accounts);
     }
 
     private Map<Workspace, List<AbstractTest>> checkForEmptyTests(Map<Workspace, List<AbstractTest>>  tests) {
@@ -116,53 +140,16 @@ public class TestsUtils {
         return tests;
     }
 
+    private Map<Workspace, List<AbstractTest>> generateFailedTestMap(Throwable ex) {
+        final Map<Workspace, List<AbstractTest>> res = new HashMap<>();
+        res.put(new Workspace(utils, ex.getMessage(), "Failed to get tests. "), Collections.<AbstractTest>emptyList());
+        return res;
+    }
+
     private Map<Workspace, List<AbstractTest>> generateEmptyTestMap() {
         final Map<Workspace, List<AbstractTest>> res = new HashMap<>();
         Workspace workspace = new Workspace(utils, "No tests for this account", "");
         res.put(workspace, Collections.<AbstractTest>emptyList());
         return res;
     }
-
-    private void addTestsForAccount(Account account, Map<Workspace, List<AbstractTest>> result) {
-        try {
-            List<Workspace> workspaces = account.getWorkspaces();
-            for (Workspace workspace : workspaces) {
-                addTestsForWorkspace(result, workspace);
-            }
-        } catch (IOException e) {
-            utils.getLogger().error("Failed to get workspaces for account id =" + account.getId() + ". Reason is: " + e.getMessage(), e);
-        }
-    }
-
-    private void addTestsForWorkspace(Map<Workspace, List<AbstractTest>> result, Workspace workspace) {
-        final List<AbstractTest> tests = new ArrayList<>();
-        boolean hasError = false;
-        try {
-            tests.addAll(workspace.getSingleTests());
-        } catch (Exception e) {
-            utils.getLogger().error("Failed to get single tests for workspace id =" + workspace.getId() + ". Reason is: " + e.getMessage(), e);
-            hasError = true;
-        }
-
-        try {
-            tests.addAll(workspace.getMultiTests());
-        } catch (Exception e) {
-            utils.getLogger().error("Failed to get multi tests for workspace id =" + workspace.getId() + ". Reason is: " + e.getMessage(), e);
-            hasError = true;
-        }
-
-        if (tests.isEmpty() && !hasError) {
-            workspace.setId(workspace.getId() + ")(No tests for this workspace");
-        } else if (hasError) {
-            workspace.setId(workspace.getId() + ")(Failed to get tests");
-        }
-
-        Collections.sort(tests, new Comparator<AbstractTest>() {
-            @Override
-            public int compare(AbstractTest o1, AbstractTest o2) {
-                return o1.getName().compareToIgnoreCase(o2.getName());
-            }
-        });
-        result.put(workspace, tests);
-    }
 }
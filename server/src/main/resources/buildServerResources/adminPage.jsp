@@ -3,7 +3,13 @@
 <%@ taglib prefix="bs" tagdir="/WEB-INF/tags" %>
 <%@ include file="/include.jsp" %>
 <script type="text/javascript">
+    var bzmPollTimer = null;
+
     function sendReqSave() {
+        if (bzmPollTimer) {
+            clearTimeout(bzmPollTimer);
+            bzmPollTimer = null;
+        }
         var apiKeyID = $('apiKeyID').value;
         var apiKeySecret = $('apiKeySecret').value;
         var blazeMeterUrl = $('blazeMeterUrl').value;
@@ -11,6 +17,7 @@
         var blazeSuccessMessage = document.getElementById("blazeSuccessMessage");
         var blazeWarningMessage = document.getElementById("blazeWarningMessage");
         var blazeErrorMessage = document.getElementById("blazeErrorMessage");
+        var blazePendingMessage = document.getElementById("blazePendingMessage");
         blazeSuccessMessage.hide();
         blazeWarningMessage.hide();
         blazeErrorMessage.hide();
@@ -21,11 +28,16 @@
                     + '&apiKeySecret=' + apiKeySecret
                     + '&blazeMeterUrl=' + blazeMeterUrl,
             onComplete: function (transport) {
+                blazePendingMessage.hide();
                 if (transport.responseText) {
                     try {
                         var xml = jQuery.parseXML(transport.responseText);
                         var result = xml.getElementsByTagName('result')[0];
-                        if ("blazeSuccessMessage" == result.id) {
+                        if ("blazePendingMessage" == result.id) {
+                            // credentials are checked in background, ask for the outcome again
+                            setValue(blazePendingMessage, result.textContent);
+                            bzmPollTimer = setTimeout(sendReqSave, 1000);
+                        } else if ("blazeSuccessMessage" == result.id) {
                             setValue(blazeSuccessMessage, result.textContent);
                         } else if ("blazeWarningMessage" == result.id) {
                             setValue(blazeWarningMessage, result.textContent);
@@ -74,6 +86,7 @@
         <input type="button" name="submitBlazeMeterAdminPageForm" value="Save" onclick="return sendReqSave();"
                class="btn btn_primary submitButton"/>
         <span class="icon_success icon16 successMessage" id="blazeSuccessMessage" style="display:none;"></span>
+        <span class="icon16" id="blazePendingMessage" style="display:none;"></span>
         <div class="icon_before icon16 attentionComment" id="blazeWarningMessage" style="display:none;"></div>
         <span class="icon_error icon16 errorMessage" id="blazeErrorMessage" style="display:none;"></span>
     </div>
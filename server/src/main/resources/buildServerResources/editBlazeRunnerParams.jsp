@@ -16,32 +16,69 @@
 <script>
     $j(document).ready(function(){
 
+        var bzmTestsUrl = "<c:url value='/blazemeter/workspaceTests.html'/>";
+        var bzmTestMap = {};
+
         function onChangedWorkspaceSelectEvent(event) {
             onChangedWorkspaceSelect(event.target);
         }
 
         function onChangedWorkspaceSelect(wsp) {
+            var testsSel = document.getElementById("all_tests");
             if (wsp.value) {
                 checkForEmptyValue(wsp);
-                var list = bzmTestMap[wsp.value];
-
-                var testsSel = document.getElementById("all_tests");
-                testsSel.options.length = 0;
-
-                for (var i = 0; i < list.length; i++) {
-                    var option = new Option(list[i].value, list[i].id)
-                    testsSel.options[i] = option;
+                var workspaceId = wsp.value;
+                if (bzmTestMap[workspaceId]) {
+                    fillTests(bzmTestMap[workspaceId]);
+                    return;
                 }
+                testsSel.options.length = 0;
+                testsSel.options[0] = new Option("Loading tests...", "");
+                $j.ajax({
+                    url: bzmTestsUrl,
+                    data: {workspaceId: workspaceId},
+                    dataType: "json",
+                    success: function (list) {
+                        bzmTestMap[workspaceId] = list;
+                        if (wsp.value == workspaceId) {
+                            fillTests(list);
+                        }
+                    },
+                    error: function () {
+                        testsSel.options.length = 0;
+                        testsSel.options[0] = new Option("Failed to get tests", "");
+                    }
+                });
             } else {
                 wsp.prepend(new Option("Select Workspace", ""));
                 wsp.value = "";
-                var testsSel = document.getElementById("all_tests");
+                if (selectedTest) {
+                    // keep previously selected test when workspace was not saved
+                    return;
+                }
                 testsSel.options.length = 0;
                 testsSel.prepend(new Option("No Workspace", ""));
                 testsSel.value = "";
             }
         }
 
+        function fillTests(list) {
+            var testsSel = document.getElementById("all_tests");
+            testsSel.options.length = 0;
+            var isSelected = false;
+            for (var i = 0; i < list.length; i++) {
+                var option = new Option(list[i].name + "(" + list[i].id + ")", list[i].id);
+                if (list[i].id == selectedTest) {
+                    option.selected = true;
+                    isSelected = true;
+                }
+                testsSel.options[i] = option;
+            }
+            if (!isSelected && testsSel.options.length > 0) {
+                testsSel.options[0].selected = true;
+            }
+        }
+
         function checkForEmptyValue(wsp) {
             for (var i = 0; i < wsp.options.length; i++) {
                 if (wsp.options[i].value == "") {
@@ -51,39 +88,59 @@
         }
 
         var selectedTest = "${propertiesBean.properties['all_tests']}";
-        var selectedWsp = "";
-        var bzmTestMap = [];
-        <c:forEach var="workspace" items="${testsMap.keySet()}">
-            var array = [];
-            <c:forEach var="test" items="${testsMap.get(workspace)}">
-                 var obj = {};
-                 obj.id = "${test.getId()}.${test.getTestType()}";
-                 obj.value = "${test.getName()}(${test.getId()}.${test.getTestType()})";
-                 array.push(obj);
-                 if (obj.id == selectedTest) {
-                    selectedWsp = "${workspace.getId()}";
-                 }
-            </c:forEach>
-            bzmTestMap["${workspace.getId()}"] = array;
-        </c:forEach>
+        var selectedWsp = "${propertiesBean.properties['all_workspaces']}";
 
         var wspSel = document.getElementById("all_workspaces");
         wspSel.value = selectedWsp;
         wspSel.onchange = onChangedWorkspaceSelectEvent;
         onChangedWorkspaceSelect(wspSel);
 
-        // select value in tests selection
-        var testsSelect = document.getElementById("all_tests");
-        var isSelected = false;
-        for (var i = 0; i < testsSelect.options.length; i++) {
-            if (testsSelect.options[i].value == selectedTest) {
-                testsSelect.options[i].selected = true;
-                isSelected = true;
+        var bzmSearchUrl = "<c:url value='/blazemeter/searchTests.html'/>";
+        var searchInput = document.getElementById("bzmTestSearch");
+        var searchResults = document.getElementById("bzmTestSearchResults");
+        var searchError = document.getElementById("bzmTestSearchError");
+        var searchTimer = null;
+
+        searchInput.onkeyup = function () {
+            clearTimeout(searchTimer);
+            searchTimer = setTimeout(function () {
+                var query = searchInput.value;
+                if (!query) {
+                    searchError.textContent = "";
+                    searchResults.options.length = 0;
+                    searchResults.style.display = "none";
+                    return;
+                }
+                $j.ajax({
+                    url: bzmSearchUrl,
+                    data: {q: query},
+                    dataType: "json",
+                    success: function (result) {
+                        if (searchInput.value != query) {
+                            return;
+                        }
+                        var hits = result.tests;
+                        searchError.textContent = result.error || "";
+                        searchResults.options.length = 0;
+                        for (var i = 0; i < hits.length; i++) {
+                            var option = new Option(hits[i].name + "(" + hits[i].id + ") - " + hits[i].workspaceName, hits[i].id);
+                            option.setAttribute("data-workspace", hits[i].workspaceId);
+                            searchResults.options[i] = option;
+                        }
+                        searchResults.style.display = hits.length > 0 ? "" : "none";
+                    }
+                });
+            }, 200);
+        };
+
+        searchResults.onchange = function () {
+            var option = searchResults.options[searchResults.selectedIndex];
+            if (option) {
+                selectedTest = option.value;
+                wspSel.value = option.getAttribute("data-workspace");
+                onChangedWorkspaceSelect(wspSel);
             }
-        }
-        if (!isSelected && testsSelect.options.length > 0) {
-            testsSelect.options[0].selected = true;
-        }
+        };
     });
 </script>
 
@@ -104,23 +161,38 @@
         </td>
     </tr>
 
+    <tr>
+        <th><label>Search tests:</label></th>
+        <td>
+            <input type="text" id="bzmTestSearch" class="longField" autocomplete="off"/>
+            <select id="bzmTestSearchResults" class="longField" size="6" style="display:none;"></select>
+            <span class="error" id="bzmTestSearchError"></span>
+            <span class="smallNote">Type a part of test name or id to find the test in all workspaces.</span>
+        </td>
+    </tr>
+
     <tr>
         <th><label>BlazeMeter tests:</label></th>
         <td>
             <props:selectProperty name="all_tests" className="longField">
-                <c:set var="testsMap" value="${testUtils.getTests()}"/>
-                <c:forEach var="workspace" items="${testsMap.keySet()}">
-                    <c:forEach var="test" items="${testsMap.get(workspace)}">
-                       <props:option value="${test.getId()}.${test.getTestType()}" selected="false" id="${test.getId()}.${test.getTestType()}">
-                                    ${test.getName()}(${test.getId()}.${test.getTestType()})
-                       </props:option>
-                    </c:forEach>
-                </c:forEach>
+                <c:if test="${not empty propertiesBean.properties['all_tests']}">
+                    <props:option value="${propertiesBean.properties['all_tests']}" id="${propertiesBean.properties['all_tests']}">
+                        ${propertiesBean.properties['all_tests']}
+                    </props:option>
+                </c:if>
             </props:selectProperty>
             <span class="error" id="error_all_tests"></span>
             <span class="smallNote">Select the test to execute.</span>
         </td>
     </tr>
+ <tr class="advancedSetting advanced_hidden">
+     <th><label>Additional tests:</label></th>
+     <td>
+         <props:multilineProperty name="blazeMeterPlugin.additionalTests" linkTitle="" cols="35" rows="2" expanded="true"/>
+         <span class="error" id="error_blazeMeterPlugin.additionalTests"></span>
+         <span class="smallNote">Optional, ids of tests to run in parallel with the selected test, separated by commas or new lines.</span>
+     </td>
+ </tr>
  <tr>
      <th><label>Webhook Notification:</label></th>
      <td>
@@ -137,6 +209,16 @@
          <span class="smallNote">Required, for configure webhook notification</span>
      </td>
  </tr>
+ <tr>
+     <th><label>Notification mode:</label></th>
+     <td>
+         <props:radioButtonProperty name="blazeMeterPlugin.notificationMode" value="build"/>
+         <label for="buildRadio">Every build</label>
+         <props:radioButtonProperty name="blazeMeterPlugin.notificationMode" value="digest"/>
+         <label for="digestRadio">Digest</label>
+         <span class="smallNote">Digest sends results of many builds in one message, failures are still sent immediately</span>
+     </td>
+ </tr>
 <tr>
     <th><label>Download JUnit report:</label></th>
     <td>
@@ -6,17 +6,21 @@
     </c:when>
     <c:otherwise>
         <c:if test="${bzmReports != null}">
-            <c:forEach items="${bzmReports.keySet()}" var="key">
-                <div class="successStatusBlock statusBlock" style="margin-top: 0.5em;">
+            <c:forEach items="${bzmReports}" var="entry">
+                <c:set var="bzmFailed" value="${entry.result == 'FAILED' || entry.result == 'ERROR'}"/>
+                <div class="${bzmFailed ? 'failureStatusBlock' : 'successStatusBlock'} statusBlock" style="margin-top: 0.5em;">
                     <table class="statusTable">
                         <tbody>
                             <tr><td></td></tr>
                             <tr>
                                 <td class="st">
                                     <span class="buildDataIcon">
-                                        <span class="icon icon16 build-status-icon build-status-icon_successful"></span>
+                                        <span class="icon icon16 build-status-icon ${bzmFailed ? 'build-status-icon_failed' : 'build-status-icon_successful'}"></span>
                                     </span>
-                                    <a href="${bzmReports.get(key)}">${key}</a>
+                                    <a href="<c:out value="${entry.reportUrl}"/>">BlazeMeter report: <c:out value="${entry.name}"/></a>
+                                    <c:if test="${entry.result != null}">
+                                        <span class="grayNote">(<c:out value="${entry.result}"/>)</span>
+                                    </c:if>
                                 </td>
                             </tr>
                         </tbody>
@@ -24,6 +28,19 @@
                 </div>
             </c:forEach>
         </c:if>
+        <c:if test="${bzmSummary != null}">
+            <table class="runnerFormTable" id="blazeSummary" style="margin-top: 1em; width: auto;">
+                <tbody>
+                    <tr class="groupingTitle"><td colspan="2">Test summary</td></tr>
+                    <c:forEach items="${bzmSummary.entrySet()}" var="kpi">
+                        <tr>
+                            <th><c:out value="${kpi.key}"/></th>
+                            <td><c:out value="${kpi.value}"/></td>
+                        </tr>
+                    </c:forEach>
+                </tbody>
+            </table>
+        </c:if>
     </c:otherwise>
 </c:choose>
 
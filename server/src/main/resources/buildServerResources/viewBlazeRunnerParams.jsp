@@ -14,6 +14,12 @@
      BlazeMeter test: <strong>${testUtils.getTestLabel(propertiesBean.properties['all_tests'])}</strong>
 </div>
 
+<c:if test="${not empty propertiesBean.properties['blazeMeterPlugin.additionalTests']}">
+    <div class="parameter">
+        Additional tests: <strong><props:displayValue name="blazeMeterPlugin.additionalTests"/></strong>
+    </div>
+</c:if>
+
 <div class="parameter">
     Download JUnit report:
     <c:choose>
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class AdminSettingsTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("bzm-settings").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        File file = new File(dir, "userKeyFile.properties");
+        AdminSettings settings = new AdminSettings(file);
+        settings.loadProperties();
+
+        AdminSettings.Snapshot before = settings.getSnapshot();
+        settings.update("id", "secret", "https://a.blazemeter.com");
+        AdminSettings.Snapshot after = settings.getSnapshot();
+        assertNotSame(before, after);
+        assertEquals("id", after.getApiKeyID());
+        assertEquals("secret", after.getApiKeySecret());
+        assertEquals("https://a.blazemeter.com", after.getBlazeMeterUrl());
+        assertEquals(1, dir.list().length);
+
+        AdminSettings restored = new AdminSettings(file);
+        restored.loadProperties();
+        assertEquals(after, restored.getSnapshot());
+
+        // the same values are not republished
+        restored.loadProperties();
+        AdminSettings.Snapshot reloaded = restored.getSnapshot();
+        restored.loadProperties();
+        assertSame(reloaded, restored.getSnapshot());
+    }
+
+    @Test
+    public void testReloadExternalChanges() throws Exception {
+        File file = new File(dir, "userKeyFile.properties");
+        AdminSettings settings = new AdminSettings(file);
+        settings.init();
+        try {
+            settings.update("id", "secret", "https://a.blazemeter.com");
+
+            FileUtils.writeStringToFile(file, "apiKeyID=newId\napiKeySecret=newSecret\nblazeMeterUrl=https\\://b.blazemeter.com\n");
+
+            long deadline = System.currentTimeMillis() + 20000;
+            while (!"newId".equals(settings.getSnapshot().getApiKeyID()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals("newId", settings.getSnapshot().getApiKeyID());
+            assertEquals("https://b.blazemeter.com", settings.getSnapshot().getBlazeMeterUrl());
+        } finally {
+            settings.dispose();
+        }
+    }
+}
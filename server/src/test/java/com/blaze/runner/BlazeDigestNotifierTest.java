@@ -0,0 +1,66 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class BlazeDigestNotifierTest {
+
+    @Test
+    public void testDigestWebhooks() throws Exception {
+        Map<String, String> buildParameters = new HashMap<>();
+        buildParameters.put("env.SLACK_HOOK", "https://hooks.slack.com/services/T/B/secret");
+        buildParameters.put("notification.mode", "digest");
+
+        List<Map<String, String>> runners = new ArrayList<>();
+        runners.add(runner("%env.SLACK_HOOK%", "slack", "%notification.mode%"));
+        runners.add(runner("https://teams/hook", "teams", "build"));
+        runners.add(runner(" https://teams/digest ", "teams", "digest"));
+        runners.add(runner("%env.SLACK_HOOK%", "slack", "digest"));
+        runners.add(runner("", "slack", "digest"));
+
+        Map<String, String> webhooks = BlazeDigestNotifier.getDigestWebhooks(runners, buildParameters);
+        assertEquals(2, webhooks.size());
+        assertEquals("slack", webhooks.get("https://hooks.slack.com/services/T/B/secret"));
+        assertEquals("teams", webhooks.get("https://teams/digest"));
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("host", "hooks.example.com");
+        parameters.put("token", "a$b\\c");
+
+        assertEquals("https://hooks.example.com/a$b\\c", BlazeDigestNotifier.resolve("https://%host%/%token%", parameters));
+        assertEquals("https://%unknown%/x", BlazeDigestNotifier.resolve("https://%unknown%/x", parameters));
+        assertEquals("100% done", BlazeDigestNotifier.resolve("100% done", parameters));
+        assertEquals(null, BlazeDigestNotifier.resolve(null, parameters));
+    }
+
+    private static Map<String, String> runner(String url, String type, String mode) {
+        Map<String, String> params = new HashMap<>();
+        params.put(Constants.SETING_WEBHOOK_URL, url);
+        params.put(Constants.SETTING_NOTIFICATION_TYPE, type);
+        params.put(Constants.SETTING_NOTIFICATION_MODE, mode);
+        return params;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CredentialsValidatorTest {
+
+    private static class FakeValidator extends CredentialsValidator {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        FakeValidator(long timeout, long timeoutTtl) {
+            super(1, timeout, 60000, timeoutTtl);
+        }
+
+        @Override
+        protected Result check(CredentialsKey credentials) {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                return Result.invalid("interrupted");
+            }
+            return "secret".equals(credentials.getApiKeySecret()) ? Result.VALID : Result.invalid("Invalid");
+        }
+    }
+
+    private static CredentialsValidator.Result await(CredentialsValidator validator, CredentialsKey credentials) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        CredentialsValidator.Result result = validator.validate(credentials);
+        while (result.isPending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            result = validator.validate(credentials);
+        }
+        return result;
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        FakeValidator validator = new FakeValidator(60000, 60000);
+        CredentialsKey valid = new CredentialsKey("id", "secret", "url");
+        CredentialsKey invalid = new CredentialsKey("id", "wrong", "url");
+
+        assertSame(CredentialsValidator.Result.PENDING, validator.validate(valid));
+        assertSame(CredentialsValidator.Result.PENDING, validator.validate(valid));
+        validator.release.countDown();
+
+        assertTrue(await(validator, valid).isValid());
+        CredentialsValidator.Result result = await(validator, invalid);
+        assertFalse(result.isValid());
+        assertEquals("Invalid", result.getMessage());
+
+        assertTrue(validator.validate(valid).isValid());
+        assertEquals(2, validator.calls.get());
+        validator.dispose();
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        FakeValidator validator = new FakeValidator(100, 300);
+        CredentialsKey credentials = new CredentialsKey("id", "secret", "url");
+
+        CredentialsValidator.Result result = await(validator, credentials);
+        assertFalse(result.isPending());
+        assertFalse(result.isValid());
+        assertTrue(result.getMessage(), result.getMessage().startsWith("BlazeMeter did not respond"));
+
+        // timed out check is cached for a short time
+        assertSame(result, validator.validate(credentials));
+        assertEquals(1, validator.calls.get());
+
+        Thread.sleep(400);
+        assertTrue(validator.validate(credentials).isPending());
+        validator.dispose();
+    }
+}
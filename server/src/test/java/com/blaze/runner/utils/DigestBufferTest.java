@@ -0,0 +1,101 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.notifications.DigestEntry;
+import com.blaze.notifications.WebhookSender;
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DigestBufferTest {
+
+    private static class FakeSender extends WebhookSender {
+        private final List<String> payloads = Collections.synchronizedList(new ArrayList<String>());
+        private volatile int code = 200;
+        private volatile RuntimeException error;
+
+        @Override
+        public int send(String url, String payload) throws IOException {
+            if (error != null) {
+                throw error;
+            }
+            payloads.add(payload);
+            return code;
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        FakeSender sender = new FakeSender();
+        DigestBuffer buffer = new DigestBuffer(0, 3, 5, sender);
+
+        buffer.add("slack", "http://hooks/1", new DigestEntry("Build #1", "Success", "http://report/1", false));
+        buffer.add("teams", "http://hooks/2", new DigestEntry("Build #2", "Failed", null, true));
+        buffer.add("slack", "http://hooks/1", new DigestEntry("Build #3", "Success", null, false));
+        assertEquals(3, buffer.size());
+
+        buffer.add("slack", "http://hooks/1", new DigestEntry("Build #4", "Success", null, false));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sender.payloads.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, sender.payloads.size());
+        JSONObject slack = JSONObject.fromObject(sender.payloads.get(0));
+        String text = slack.getJSONArray("attachments").getJSONObject(0).getString("text");
+        assertTrue(text, text.contains("Build #1 - Success - <http://report/1|report>"));
+        assertTrue(text, text.contains("Build #4"));
+        assertEquals(1, buffer.size());
+
+        sender.code = 503;
+        buffer.flushAll();
+        assertEquals(2, sender.payloads.size());
+        assertEquals(1, buffer.size());
+        JSONObject teams = JSONObject.fromObject(sender.payloads.get(1));
+        assertEquals("#FF0000", teams.getString("themeColor"));
+
+        sender.code = 200;
+        buffer.dispose();
+        assertEquals(3, sender.payloads.size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testBrokenWebhook() throws Exception {
+        FakeSender sender = new FakeSender();
+        DigestBuffer buffer = new DigestBuffer(0, 10, 10, sender);
+
+        buffer.add("slack", "not a url", new DigestEntry("Build #1", "Success", null, false));
+        assertEquals(0, buffer.size());
+
+        buffer.add("slack", "http://hooks/1", new DigestEntry("Build #2", "Success", null, false));
+        sender.error = new IllegalArgumentException("unexpected url");
+        buffer.flushAll();
+        assertEquals(0, buffer.size());
+        assertTrue(sender.payloads.isEmpty());
+
+        sender.error = null;
+        buffer.add("slack", "http://hooks/1", new DigestEntry("Build #3", "Success", null, false));
+        buffer.dispose();
+        assertEquals(1, sender.payloads.size());
+    }
+}
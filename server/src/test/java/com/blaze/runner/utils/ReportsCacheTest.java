@@ -0,0 +1,136 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blaze.utils.ReportManifest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReportsCacheTest {
+
+    private static class CountingLoader implements Callable<BzmReport> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final String content;
+
+        CountingLoader(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public BzmReport call() throws Exception {
+            calls.incrementAndGet();
+            if (content == null) {
+                return BzmReport.failed("Failed to get the report: broken");
+            }
+            return BzmReport.parse(new ByteArrayInputStream(content.getBytes("UTF-8")));
+        }
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        BzmReport report = BzmReport.parse(new ByteArrayInputStream("Master 1\nhttp://a.com/1\nMaster 2".getBytes("UTF-8")));
+        assertTrue(report.hasArtifact());
+        assertNull(report.getMessage());
+        assertEquals(2, report.getEntries().size());
+        assertEquals("Master 1", report.getEntries().get(0).getName());
+        assertEquals("http://a.com/1", report.getEntries().get(0).getReportUrl());
+        assertEquals("Master 2", report.getEntries().get(1).getName());
+        assertEquals("", report.getEntries().get(1).getReportUrl());
+
+        report = BzmReport.parse(new ByteArrayInputStream("BlazeMeter report: Test\r\nhttp://a.com/1\r\n".getBytes("UTF-8")));
+        assertEquals("Test", report.getEntries().get(0).getName());
+
+        report = BzmReport.parse(new ByteArrayInputStream(new byte[0]));
+        assertEquals("There is no report for this build", report.getMessage());
+        assertFalse(BzmReport.NO_ARTIFACT.hasArtifact());
+    }
+
+    @Test
+    public void testParseManifest() throws Exception {
+        ReportManifest manifest = new ReportManifest();
+        manifest.put(new ReportManifest.Entry("Test", "2", "20", "http://a.com/2", 1000, 0, null));
+        manifest.put(new ReportManifest.Entry("Test", "1", "10", "http://a.com/1", 2000, 5000, "FAILED"));
+        manifest.put(new ReportManifest.Entry("Test", "2", "20", "http://a.com/2", 1000, 6000, "SUCCESS"));
+
+        BzmReport report = BzmReport.parse(new ByteArrayInputStream(manifest.toJSONString().getBytes("UTF-8")));
+        assertNull(report.getMessage());
+        List<ReportManifest.Entry> entries = report.getEntries();
+        assertEquals(2, entries.size());
+        assertEquals("2", entries.get(0).getMasterId());
+        assertEquals("20", entries.get(0).getTestId());
+        assertEquals("SUCCESS", entries.get(0).getResult());
+        assertEquals(6000, entries.get(0).getEndedAt());
+        assertEquals("1", entries.get(1).getMasterId());
+        assertEquals("http://a.com/1", entries.get(1).getReportUrl());
+        assertEquals(2000, entries.get(1).getStartedAt());
+        assertEquals("FAILED", entries.get(1).getResult());
+
+        report = BzmReport.parse(new ByteArrayInputStream("{\"version\":1,\"masters\":[]}".getBytes("UTF-8")));
+        assertEquals("There is no report for this build", report.getMessage());
+
+        try {
+            BzmReport.parse(new ByteArrayInputStream("{\"version\":1,\"masters\":[".getBytes("UTF-8")));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Malformed report manifest"));
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        ReportsCache cache = new ReportsCache(2);
+        CountingLoader loader = new CountingLoader("Master\nhttp://a.com");
+
+        BzmReport report = cache.get(1, loader);
+        assertSame(report, cache.get(1, loader));
+        assertEquals(1, loader.calls.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        cache.get(2, loader);
+        cache.get(1, loader);
+        cache.get(3, loader);
+        assertEquals(2, cache.size());
+        assertEquals(3, loader.calls.get());
+
+        // build 2 was the least recently used one
+        cache.get(2, loader);
+        assertEquals(4, loader.calls.get());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testFailedReportIsNotCached() throws Exception {
+        ReportsCache cache = new ReportsCache(10);
+        CountingLoader loader = new CountingLoader(null);
+
+        assertTrue(cache.get(1, loader).isFailed());
+        assertTrue(cache.get(1, loader).isFailed());
+        assertEquals(2, loader.calls.get());
+        assertEquals(0, cache.size());
+    }
+}
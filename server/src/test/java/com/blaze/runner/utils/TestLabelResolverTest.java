@@ -0,0 +1,110 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestLabelResolverTest {
+
+    private static class FakeResolver extends TestLabelResolver {
+        private final List<Collection<String>> batches = new ArrayList<>();
+
+        FakeResolver() {
+            this(60000);
+        }
+
+        FakeResolver(long ttl) {
+            super(ttl, ttl, 5);
+        }
+
+        @Override
+        protected Map<String, String> resolveNames(CredentialsKey credentials, Collection<String> testIds) {
+            synchronized (batches) {
+                batches.add(new ArrayList<>(testIds));
+            }
+            Map<String, String> result = new HashMap<>();
+            for (String testId : testIds) {
+                if (!testId.startsWith("404")) {
+                    result.put(testId, "Test " + testId);
+                }
+            }
+            return result;
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        FakeResolver resolver = new FakeResolver();
+        CredentialsKey credentials = new CredentialsKey("id", "secret", "url");
+
+        assertEquals("1.http", resolver.getLabel(credentials, "1.http"));
+        assertEquals("2.http", resolver.getLabel(credentials, "2.http"));
+        assertEquals("404.http", resolver.getLabel(credentials, "404.http"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (resolver.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("Test 1(1.http)", resolver.getLabel(credentials, "1.http"));
+        assertEquals("Test 2(2.taurus)", resolver.getLabel(credentials, "2.taurus"));
+        assertEquals("404.http", resolver.getLabel(credentials, "404.http"));
+
+        int requested = 0;
+        synchronized (resolver.batches) {
+            assertTrue(resolver.batches.size() <= 3);
+            for (Collection<String> batch : resolver.batches) {
+                requested += batch.size();
+            }
+        }
+        assertEquals(3, requested);
+        resolver.dispose();
+    }
+
+    private static void await(TestLabelResolver resolver, int size) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (resolver.size() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, resolver.size());
+    }
+
+    @Test
+    public void testLabelsOfOtherUserAndExpiration() throws Exception {
+        FakeResolver resolver = new FakeResolver(200);
+        CredentialsKey credentials = new CredentialsKey("id", "secret", "url");
+        CredentialsKey other = new CredentialsKey("id", "other", "url");
+
+        resolver.getLabel(credentials, "1.http");
+        await(resolver, 1);
+        assertEquals("Test 1(1.http)", resolver.getLabel(credentials, "1.http"));
+        assertEquals("1.http", resolver.getLabel(other, "1.http"));
+        await(resolver, 2);
+
+        Thread.sleep(300);
+        resolver.getLabel(credentials, "2.http");
+        await(resolver, 1);
+        resolver.dispose();
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestsCatalogCacheTest {
+
+    private static class CountingCache extends TestsCatalogCache {
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile long delay;
+        private volatile IOException error;
+        private volatile boolean partial;
+
+        CountingCache(long ttl, long refreshAfter) {
+            this(ttl, refreshAfter, 60000);
+        }
+
+        CountingCache(long ttl, long refreshAfter, long failureTtl) {
+            super(ttl, refreshAfter, failureTtl);
+        }
+
+        @Override
+        protected Map<Workspace, List<AbstractTest>> loadTests(CredentialsKey key) throws IOException {
+            loads.incrementAndGet();
+            if (error != null) {
+                throw error;
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Map<Workspace, List<AbstractTest>> result = new HashMap<>();
+            String id = partial ? "1" + TestsLoader.FAILED_WORKSPACE_SUFFIX : "1";
+            result.put(new Workspace(new BzmServerUtils(), id, "wsp"), Collections.<AbstractTest>emptyList());
+            return result;
+        }
+    }
+
+    @Test
+    public void testFlow() throws Exception {
+        CountingCache cache = new CountingCache(60000, 60000);
+        CredentialsKey key = new CredentialsKey("id", "secret", "url");
+
+        assertEquals(1, cache.getTests(key).size());
+        assertEquals(1, cache.getTests(new CredentialsKey("id", "secret", "url")).size());
+        assertEquals(1, cache.loads.get());
+
+        cache.getTests(new CredentialsKey("id", "other secret", "url"));
+        assertEquals(2, cache.loads.get());
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.getTests(key);
+        assertEquals(3, cache.loads.get());
+        cache.dispose();
+    }
+
+    @Test
+    public void testSharedLoad() throws Exception {
+        final CountingCache cache = new CountingCache(60000, 60000);
+        cache.delay = 300;
+        final CredentialsKey key = new CredentialsKey("id", "secret", "url");
+        final CountDownLatch latch = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    cache.getTests(key);
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(1, cache.loads.get());
+        cache.dispose();
+    }
+
+    @Test
+    public void testBackgroundRefresh() throws Exception {
+        CountingCache cache = new CountingCache(60000, 0);
+        CredentialsKey key = new CredentialsKey("id", "secret", "url");
+
+        cache.getTests(key);
+        assertEquals(1, cache.getTests(key).size());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.loads.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(cache.loads.get() >= 2);
+        cache.dispose();
+    }
+
+    @Test
+    public void testFailedLoad() throws Exception {
+        CountingCache cache = new CountingCache(60000, 60000);
+        CredentialsKey key = new CredentialsKey("id", "secret", "url");
+        cache.error = new IOException("BlazeMeter is down");
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.getTests(key);
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals("BlazeMeter is down", e.getCause().getMessage());
+            }
+        }
+        assertEquals(1, cache.loads.get());
+        assertEquals(0, cache.size());
+
+        cache.clear();
+        cache.error = null;
+        assertEquals(1, cache.getTests(key).size());
+        assertEquals(2, cache.loads.get());
+        cache.dispose();
+    }
+
+    @Test
+    public void testFailedRefreshKeepsTests() throws Exception {
+        CountingCache cache = new CountingCache(60000, 0);
+        CredentialsKey key = new CredentialsKey("id", "secret", "url");
+
+        cache.getTests(key);
+        cache.error = new IOException("BlazeMeter is down");
+        assertEquals(1, cache.getTests(key).size());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.loads.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(1, cache.getTests(key).size());
+        assertEquals(1, cache.getTests(key).size());
+        assertEquals(2, cache.loads.get());
+        cache.dispose();
+    }
+
+    @Test
+    public void testPartialLoadUsesFailureTtl() throws Exception {
+        CountingCache cache = new CountingCache(60000, 60000, 50);
+        CredentialsKey key = new CredentialsKey("id", "secret", "url");
+        cache.partial = true;
+
+        cache.getTests(key);
+        cache.getTests(key);
+        assertEquals(1, cache.loads.get());
+
+        Thread.sleep(100);
+        cache.partial = false;
+        assertEquals("1", cache.getTests(key).keySet().iterator().next().getId());
+        assertEquals(2, cache.loads.get());
+
+        Thread.sleep(100);
+        cache.getTests(key);
+        assertEquals(2, cache.loads.get());
+        cache.dispose();
+    }
+
+    @Test
+    public void testReadOnlySnapshot() throws Exception {
+        CountingCache cache = new CountingCache(60000, 60000);
+        CredentialsKey key = new CredentialsKey("id", "secret", "url");
+
+        Map<Workspace, List<AbstractTest>> tests = cache.getTests(key);
+        Workspace workspace = tests.keySet().iterator().next();
+        workspace.setId("changed");
+        try {
+            tests.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            tests.values().iterator().next().add(null);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        assertEquals("1", cache.getTests(key).keySet().iterator().next().getId());
+        assertEquals("1", cache.getCachedTests(key).keySet().iterator().next().getId());
+        cache.dispose();
+    }
+}
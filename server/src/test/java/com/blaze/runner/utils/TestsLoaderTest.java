@@ -0,0 +1,124 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blazemeter.api.explorer.Account;
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import com.blazemeter.api.explorer.test.MultiTest;
+import com.blazemeter.api.explorer.test.SingleTest;
+import com.blazemeter.api.utils.BlazeMeterUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestsLoaderTest {
+
+    @Test
+    public void testFlow() throws Exception {
+        final BzmServerUtils utils = new BzmServerUtils();
+        final Workspace workspace = new Workspace(utils, "1", "wsp") {
+            @Override
+            public List<SingleTest> getSingleTests() throws IOException {
+                return Arrays.asList(new SingleTest(utils, "10", "b-test", "http"), new SingleTest(utils, "11", "A-test", "http"));
+            }
+
+            @Override
+            public List<MultiTest> getMultiTests() throws IOException {
+                return Collections.singletonList(new MultiTest(utils, "12", "c-test", "multi"));
+            }
+        };
+        final Workspace brokenWorkspace = new Workspace(utils, "2", "broken") {
+            @Override
+            public List<SingleTest> getSingleTests() throws IOException {
+                throw new IOException("broken");
+            }
+
+            @Override
+            public List<MultiTest> getMultiTests() throws IOException {
+                return Collections.emptyList();
+            }
+        };
+        final Workspace emptyWorkspace = new Workspace(utils, "3", "empty") {
+            @Override
+            public List<SingleTest> getSingleTests() throws IOException {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public List<MultiTest> getMultiTests() throws IOException {
+                return Collections.emptyList();
+            }
+        };
+
+        Map<Workspace, List<AbstractTest>> result = new TestsLoader(utils.getLogger(), 4, 10000)
+                .load(Arrays.asList(createAccount(utils, workspace, brokenWorkspace), createAccount(utils, emptyWorkspace)));
+
+        assertEquals(3, result.size());
+        List<AbstractTest> tests = result.get(workspace);
+        assertEquals(3, tests.size());
+        assertEquals("A-test", tests.get(0).getName());
+        assertEquals("b-test", tests.get(1).getName());
+        assertEquals("c-test", tests.get(2).getName());
+        assertEquals("1", workspace.getId());
+        assertEquals("2)(Failed to get tests", brokenWorkspace.getId());
+        assertEquals("3)(No tests for this workspace", emptyWorkspace.getId());
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        final BzmServerUtils utils = new BzmServerUtils();
+        final Workspace slowWorkspace = new Workspace(utils, "1", "slow") {
+            @Override
+            public List<SingleTest> getSingleTests() throws IOException {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return Collections.emptyList();
+            }
+
+            @Override
+            public List<MultiTest> getMultiTests() throws IOException {
+                return Collections.emptyList();
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        Map<Workspace, List<AbstractTest>> result = new TestsLoader(utils.getLogger(), 2, 200)
+                .load(Collections.singletonList(createAccount(utils, slowWorkspace)));
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, result.size());
+        assertEquals("1)(Failed to get tests", slowWorkspace.getId());
+    }
+
+    private static Account createAccount(BlazeMeterUtils utils, final Workspace... workspaces) {
+        return new Account(utils, "1", "account") {
+            @Override
+            public List<Workspace> getWorkspaces() throws IOException {
+                return Arrays.asList(workspaces);
+            }
+        };
+    }
+}
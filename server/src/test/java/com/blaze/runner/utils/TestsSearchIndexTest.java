@@ -0,0 +1,110 @@
+/**
+ * Copyright 2018 BlazeMeter Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.blaze.runner.utils;
+
+import com.blazemeter.api.explorer.Workspace;
+import com.blazemeter.api.explorer.test.AbstractTest;
+import com.blazemeter.api.explorer.test.SingleTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestsSearchIndexTest {
+
+    private final BzmServerUtils utils = new BzmServerUtils();
+
+    @Test
+    public void testSearch() throws Exception {
+        Map<Workspace, List<AbstractTest>> catalog = new LinkedHashMap<>();
+        catalog.put(new Workspace(utils, "1", "first"), Arrays.<AbstractTest>asList(
+                new SingleTest(utils, "100", "Checkout flow", "http"),
+                new SingleTest(utils, "101", "Login", "http"),
+                new SingleTest(utils, "102", "Smoke checkout", "taurus")));
+        catalog.put(new Workspace(utils, "2", "second"), Arrays.<AbstractTest>asList(
+                new SingleTest(utils, "200", "checkout API", "jmeter")));
+
+        TestsSearchIndex index = TestsSearchIndex.EMPTY.update(catalog);
+        assertEquals(4, index.size());
+
+        List<TestsSearchIndex.Hit> hits = index.search("CHECKOUT", 10);
+        assertEquals(3, hits.size());
+        assertEquals("checkout API", hits.get(0).getName());
+        assertEquals("2", hits.get(0).getWorkspaceId());
+        assertEquals("Checkout flow", hits.get(1).getName());
+        assertEquals("Smoke checkout", hits.get(2).getName());
+
+        hits = index.search("lo", 10);
+        assertEquals(1, hits.size());
+        assertEquals("101.http", hits.get(0).getId());
+
+        hits = index.search("10", 10);
+        assertEquals(3, hits.size());
+
+        hits = index.search("101.ht", 10);
+        assertEquals(1, hits.size());
+        assertEquals("Login", hits.get(0).getName());
+
+        assertEquals(2, index.search("checkout", 2).size());
+        assertTrue(index.search("unknown", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        Workspace first = new Workspace(utils, "1", "first");
+        Workspace second = new Workspace(utils, "2", "second");
+        Map<Workspace, List<AbstractTest>> catalog = new LinkedHashMap<>();
+        catalog.put(first, Arrays.<AbstractTest>asList(new SingleTest(utils, "100", "Checkout", "http")));
+        catalog.put(second, Arrays.<AbstractTest>asList(new SingleTest(utils, "200", "Login", "http")));
+        TestsSearchIndex index = TestsSearchIndex.EMPTY.update(catalog);
+
+        Map<Workspace, List<AbstractTest>> refreshed = new LinkedHashMap<>();
+        refreshed.put(new Workspace(utils, "1", "first"), Arrays.<AbstractTest>asList(new SingleTest(utils, "100", "Checkout", "http")));
+        refreshed.put(new Workspace(utils, "2", "second"), Arrays.<AbstractTest>asList(new SingleTest(utils, "201", "Logout", "http")));
+        TestsSearchIndex updated = index.update(refreshed);
+
+        assertTrue(updated.sharesSegment(index, "1"));
+        assertFalse(updated.sharesSegment(index, "2"));
+        assertTrue(updated.search("login", 10).isEmpty());
+        assertEquals(1, updated.search("logout", 10).size());
+    }
+
+    @Test
+    public void testLargeCatalog() throws Exception {
+        Map<Workspace, List<AbstractTest>> catalog = new LinkedHashMap<>();
+        for (int w = 0; w < 10; w++) {
+            List<AbstractTest> tests = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                tests.add(new SingleTest(utils, String.valueOf(w * 10000 + i), "Test " + w + " scenario " + i, "http"));
+            }
+            catalog.put(new Workspace(utils, String.valueOf(w), "wsp" + w), tests);
+        }
+        TestsSearchIndex index = TestsSearchIndex.EMPTY.update(catalog);
+        assertEquals(100000, index.size());
+
+        List<TestsSearchIndex.Hit> hits = index.search("scenario 4242", 20);
+        assertEquals(10, hits.size());
+        assertEquals(20, index.search("test", 20).size());
+        assertEquals(20, index.search("te", 20).size());
+    }
+}